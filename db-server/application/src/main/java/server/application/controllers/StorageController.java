@@ -1,22 +1,35 @@
 package server.application.controllers;
 
-import db.storage.Storage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import db.storage.ScanCursor;
 import db.storage.exceptions.InvalidKeyTypeException;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import server.application.entities.BatchGetEntity;
+import server.application.entities.BatchPutEntity;
+import server.application.entities.CacheStatisticsEntity;
 import server.application.entities.CreationRequest;
 import server.application.entities.GetEntity;
+import server.application.entities.KeyValueEntity;
 import server.application.entities.PutEntity;
+import server.application.entities.RangeEntity;
+import server.application.entities.ScanEntryEntity;
+import server.application.entities.StorageEntity;
 import server.application.exceptions.InvalidStorageNameException;
 import server.application.exceptions.NoSuchKeyTypeException;
 import server.application.exceptions.NoSuchStorageException;
 import server.application.exceptions.StorageAlreadyExistsException;
+import server.application.exceptions.StorageBusyException;
 import server.application.services.StorageService;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @AllArgsConstructor
 @RestController
@@ -25,34 +38,111 @@ public class StorageController {
     private final static String CREATE = "/create";
     private final static String GET = "/get";
     private final static String PUT = "/put";
+    private final static String BATCH_GET = "/batch/get";
+    private final static String BATCH_PUT = "/batch/put";
+    private final static String CACHE = "/cache";
+    private final static String SCAN = "/scan";
+    private final static String RANGE = "/range";
+    private final static MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private final static String DEFAULT_PAGE_SIZE = "1000";
+    private final static int DEFAULT_RANGE_LIMIT = 1000;
+    private final static int NEWLINE = '\n';
 
     private final StorageService storageService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping(CREATE)
     public ResponseEntity<String> create(
         @RequestBody CreationRequest creation
     ) throws IOException, InvalidStorageNameException, NoSuchKeyTypeException, StorageAlreadyExistsException {
-        storageService.createStorage(creation.getStorageName(), creation.getKeyType());
+        storageService.createStorage(creation);
         return ResponseEntity.ok("Storage " + creation.getStorageName() + " created successfully");
     }
 
     @PostMapping(PUT)
-    public ResponseEntity<String> put(
+    public CompletableFuture<ResponseEntity<String>> put(
         @RequestBody PutEntity putEntity
-    ) throws IOException, InvalidKeyTypeException, ClassNotFoundException, NoSuchStorageException {
-        try (Storage<Serializable> storage = storageService.getExistingStorage(putEntity.getStorageName())) {
-            storageService.put(storage, putEntity.getKey(), putEntity.getValue());
-            return ResponseEntity.ok("Object successfully mapped to given key");
-        }
+    ) {
+        return storageService.putAsync(
+                putEntity.getStorageName(),
+                putEntity.getKey(),
+                putEntity.getValue(),
+                putEntity.getTtl()
+            )
+            .thenApply(ignored -> ResponseEntity.ok("Object successfully mapped to given key"));
     }
 
     @GetMapping(GET)
-    public ResponseEntity<Serializable> get(
+    public CompletableFuture<ResponseEntity<Serializable>> get(
         @RequestBody GetEntity getEntity
+    ) {
+        return storageService.getAsync(getEntity.getStorageName(), getEntity.getKey())
+            .thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping(BATCH_PUT)
+    public CompletableFuture<ResponseEntity<String>> putAll(
+        @RequestBody BatchPutEntity batchPutEntity
+    ) {
+        return storageService.putAllAsync(
+                batchPutEntity.getStorageName(),
+                batchPutEntity.getEntries(),
+                batchPutEntity.getTtl()
+            )
+            .thenApply(ignored -> ResponseEntity.ok("Objects successfully mapped to given keys"));
+    }
+
+    @GetMapping(BATCH_GET)
+    public CompletableFuture<ResponseEntity<List<Serializable>>> getAll(
+        @RequestBody BatchGetEntity batchGetEntity
+    ) {
+        return storageService.getAllAsync(batchGetEntity.getStorageName(), batchGetEntity.getKeys())
+            .thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping(RANGE)
+    public CompletableFuture<ResponseEntity<List<KeyValueEntity>>> range(
+        @RequestBody RangeEntity rangeEntity
+    ) {
+        return storageService.rangeAsync(
+                rangeEntity.getStorageName(),
+                rangeEntity.getFrom(),
+                rangeEntity.getTo(),
+                rangeEntity.getPrefix(),
+                rangeEntity.getLimit() == null ? DEFAULT_RANGE_LIMIT : rangeEntity.getLimit()
+            )
+            .thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping(CACHE)
+    public ResponseEntity<CacheStatisticsEntity> cache(
+        @RequestBody StorageEntity storageEntity
     ) throws IOException, ClassNotFoundException, InvalidKeyTypeException, NoSuchStorageException {
-        try (Storage<Serializable> storage = storageService.getExistingStorage(getEntity.getStorageName())) {
-            return ResponseEntity.ok(storageService.get(storage, getEntity.getKey()));
+        return ResponseEntity.ok(storageService.getCacheStatistics(storageEntity.getStorageName()));
+    }
+
+    @GetMapping(SCAN)
+    public ResponseEntity<StreamingResponseBody> scan(
+        @RequestParam final String storageName,
+        @RequestParam(required = false) final String cursor,
+        @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) final int pageSize
+    ) throws NoSuchStorageException {
+        storageService.checkExists(storageName);
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
         }
+        ScanCursor from = cursor == null ? ScanCursor.START : ScanCursor.parse(cursor);
+        StreamingResponseBody body = output -> {
+            try {
+                storageService.scan(storageName, from, pageSize, (key, value, next) -> {
+                    output.write(objectMapper.writeValueAsBytes(new ScanEntryEntity(key, value, next.toString())));
+                    output.write(NEWLINE);
+                });
+            } catch (ClassNotFoundException | NoSuchStorageException | InvalidKeyTypeException e) {
+                throw new IOException(e);
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
     @ExceptionHandler(InvalidStorageNameException.class)
@@ -62,6 +152,13 @@ public class StorageController {
         return new ResponseEntity<>(exception.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgumentException(
+        IllegalArgumentException exception
+    ) {
+        return new ResponseEntity<>(exception.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(InvalidKeyTypeException.class)
     public ResponseEntity<String> handleInvalidKeyTypeException(
         InvalidKeyTypeException exception
@@ -83,6 +180,13 @@ public class StorageController {
         return new ResponseEntity<>(exception.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(StorageBusyException.class)
+    public ResponseEntity<String> handleStorageBusyException(
+        StorageBusyException exception
+    ) {
+        return new ResponseEntity<>(exception.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(StorageAlreadyExistsException.class)
     public ResponseEntity<String> handleNoSuchKeyTypeException(
         StorageAlreadyExistsException exception
@@ -0,0 +1,14 @@
+package server.application.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.List;
+
+@AllArgsConstructor
+@Getter
+public class BatchGetEntity {
+    private final String storageName;
+    private final List<Serializable> keys;
+}
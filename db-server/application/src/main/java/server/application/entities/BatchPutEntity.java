@@ -0,0 +1,14 @@
+package server.application.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Getter
+public class BatchPutEntity {
+    private final String storageName;
+    private final List<KeyValueEntity> entries;
+    private final Long ttl;
+}
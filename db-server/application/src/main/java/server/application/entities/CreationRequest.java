@@ -1,11 +1,27 @@
 package server.application.entities;
 
+import db.storage.BucketFormat;
+import db.storage.Compression;
+import db.storage.FsyncPolicy;
+import db.storage.Growth;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.util.List;
+
 @AllArgsConstructor
 @Getter
 public class CreationRequest {
     private final String storageName;
     private final String keyType;
+    private final BucketFormat bucketFormat;
+    private final Growth growth;
+    private final Boolean indexed;
+    private final FsyncPolicy fsyncPolicy;
+    private final Long fsyncInterval;
+    private final Double falsePositiveRate;
+    private final List<String> shards;
+    private final Compression compression;
+    private final Boolean ordered;
+    private final Integer orderedLimit;
 }
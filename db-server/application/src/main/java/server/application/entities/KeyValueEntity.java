@@ -0,0 +1,13 @@
+package server.application.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+@AllArgsConstructor
+@Getter
+public class KeyValueEntity {
+    private final Serializable key;
+    private final Serializable value;
+}
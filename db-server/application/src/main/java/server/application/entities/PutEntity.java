@@ -11,4 +11,5 @@ public class PutEntity {
     private final String storageName;
     private final Serializable key;
     private final Serializable value;
+    private final Long ttl;
 }
@@ -0,0 +1,16 @@
+package server.application.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+@AllArgsConstructor
+@Getter
+public class RangeEntity {
+    private final String storageName;
+    private final Serializable from;
+    private final Serializable to;
+    private final String prefix;
+    private final Integer limit;
+}
@@ -0,0 +1,14 @@
+package server.application.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+@AllArgsConstructor
+@Getter
+public class ScanEntryEntity {
+    private final Serializable key;
+    private final Serializable value;
+    private final String cursor;
+}
@@ -0,0 +1,7 @@
+package server.application.exceptions;
+
+public class StorageBusyException extends Exception {
+    public StorageBusyException(final String message) {
+        super(message);
+    }
+}
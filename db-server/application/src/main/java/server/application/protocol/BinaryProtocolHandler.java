@@ -0,0 +1,271 @@
+package server.application.protocol;
+
+import db.storage.codec.Codec;
+import db.storage.codec.Codecs;
+import db.storage.codec.SerializableCodec;
+import db.storage.exceptions.InvalidKeyTypeException;
+import org.springframework.stereotype.Component;
+import server.application.entities.KeyValueEntity;
+import server.application.exceptions.NoSuchStorageException;
+import server.application.exceptions.StorageBusyException;
+import server.application.services.StorageRegistry;
+import server.application.services.StorageService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class BinaryProtocolHandler {
+
+    static final byte GET = 1;
+    static final byte PUT = 2;
+    static final byte BATCH_GET = 3;
+    static final byte BATCH_PUT = 4;
+
+    static final byte OK = 0;
+    static final byte BAD_REQUEST = 1;
+    static final byte NOT_FOUND = 2;
+    static final byte BUSY = 3;
+    static final byte INTERNAL_ERROR = 4;
+
+    private static final int ABSENT = -1;
+    private static final long NO_TTL = 0;
+
+    private interface Body {
+        void writeTo(DataOutput output) throws IOException;
+    }
+
+    private interface ResultWriter<T> {
+        void write(T result, DataOutput output) throws IOException;
+    }
+
+    private final StorageService storageService;
+    private final Codec<Serializable> valueCodec = Codecs.forUntrustedValues();
+    private final Map<String, Codec<Serializable>> keyCodecs = new ConcurrentHashMap<>();
+
+    public BinaryProtocolHandler(final StorageService storageService) {
+        this.storageService = storageService;
+        storageService.addCreationListener(keyCodecs::remove);
+    }
+
+    CompletableFuture<ByteBuffer> handle(final byte[] frame) {
+        long requestId = frame.length >= Long.BYTES ? ByteBuffer.wrap(frame).getLong() : 0;
+        try {
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(frame));
+            input.readLong();
+            byte opcode = input.readByte();
+            byte[] name = new byte[input.readUnsignedShort()];
+            input.readFully(name);
+            String storageName = new String(name, StandardCharsets.UTF_8);
+            return keyCodec(storageName)
+                .thenCompose(keyCodec -> dispatch(requestId, opcode, storageName, input, keyCodec))
+                .exceptionally(e -> error(requestId, e));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(error(requestId, e));
+        }
+    }
+
+    private CompletableFuture<ByteBuffer> dispatch(
+        final long requestId,
+        final byte opcode,
+        final String storageName,
+        final DataInputStream input,
+        final Codec<Serializable> keyCodec
+    ) {
+        try {
+            switch (opcode) {
+                case GET:
+                    return respond(
+                        requestId,
+                        storageName,
+                        storageService.getAsync(storageName, readKey(input, keyCodec)),
+                        (value, output) -> writeValue(value, output)
+                    );
+                case PUT: {
+                    Long ttl = readTtl(input);
+                    Serializable key = readKey(input, keyCodec);
+                    return respond(
+                        requestId,
+                        storageName,
+                        storageService.putAsync(storageName, key, readValue(input), ttl),
+                        (ignored, output) -> {}
+                    );
+                }
+                case BATCH_GET: {
+                    int count = readCount(input, Integer.BYTES);
+                    List<Serializable> keys = new ArrayList<>();
+                    for (int i = 0; i < count; i++) {
+                        keys.add(readKey(input, keyCodec));
+                    }
+                    return respond(
+                        requestId,
+                        storageName,
+                        storageService.getAllAsync(storageName, keys),
+                        (values, output) -> {
+                            output.writeInt(values.size());
+                            for (Serializable value : values) {
+                                writeValue(value, output);
+                            }
+                        }
+                    );
+                }
+                case BATCH_PUT: {
+                    Long ttl = readTtl(input);
+                    int count = readCount(input, 2 * Integer.BYTES);
+                    List<KeyValueEntity> entries = new ArrayList<>();
+                    for (int i = 0; i < count; i++) {
+                        Serializable key = readKey(input, keyCodec);
+                        entries.add(new KeyValueEntity(key, readValue(input)));
+                    }
+                    return respond(
+                        requestId,
+                        storageName,
+                        storageService.putAllAsync(storageName, entries, ttl),
+                        (ignored, output) -> {}
+                    );
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown opcode " + opcode);
+            }
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(error(requestId, e));
+        }
+    }
+
+    private CompletableFuture<Codec<Serializable>> keyCodec(final String storageName) {
+        String normalized = StorageRegistry.normalize(storageName);
+        Codec<Serializable> codec = keyCodecs.get(normalized);
+        if (codec != null) {
+            return CompletableFuture.completedFuture(codec);
+        }
+        return storageService.getKeyCodecAsync(storageName).thenApply(resolved -> {
+            if (resolved == null || resolved instanceof SerializableCodec) {
+                throw new IllegalArgumentException("Storage " + storageName + " has no binary key codec");
+            }
+            keyCodecs.put(normalized, resolved);
+            return resolved;
+        });
+    }
+
+    private void invalidate(final String storageName, final Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof NoSuchStorageException || cause instanceof InvalidKeyTypeException) {
+            keyCodecs.remove(StorageRegistry.normalize(storageName));
+        }
+    }
+
+    private static int readCount(final DataInputStream input, final int minEntrySize) throws IOException {
+        int count = input.readInt();
+        if (count < 0 || count > input.available() / minEntrySize) {
+            throw new IllegalArgumentException("Invalid entry count " + count);
+        }
+        return count;
+    }
+
+    private static byte[] readBytes(final DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0 || length > input.available()) {
+            throw new IllegalArgumentException("Invalid payload length " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    private static Long readTtl(final DataInput input) throws IOException {
+        long ttl = input.readLong();
+        return ttl == NO_TTL ? null : ttl;
+    }
+
+    private static Serializable readKey(final DataInputStream input, final Codec<Serializable> keyCodec) throws IOException {
+        return keyCodec.read(new DataInputStream(new ByteArrayInputStream(readBytes(input))));
+    }
+
+    private Serializable readValue(final DataInputStream input) throws IOException {
+        return valueCodec.read(new DataInputStream(new ByteArrayInputStream(readBytes(input))));
+    }
+
+    private void writeValue(final Serializable value, final DataOutput output) throws IOException {
+        if (value == null) {
+            output.writeInt(ABSENT);
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        valueCodec.write(value, new DataOutputStream(bytes));
+        output.writeInt(bytes.size());
+        output.write(bytes.toByteArray());
+    }
+
+    private <T> CompletableFuture<ByteBuffer> respond(
+        final long requestId,
+        final String storageName,
+        final CompletableFuture<T> result,
+        final ResultWriter<T> writer
+    ) {
+        return result.handle((value, error) -> {
+            if (error != null) {
+                invalidate(storageName, error);
+                return error(requestId, error);
+            }
+            try {
+                return frame(requestId, OK, output -> writer.write(value, output));
+            } catch (IOException e) {
+                return error(requestId, e);
+            }
+        });
+    }
+
+    private static byte status(final Throwable error) {
+        if (error instanceof NoSuchStorageException) {
+            return NOT_FOUND;
+        } else if (error instanceof StorageBusyException) {
+            return BUSY;
+        } else if (error instanceof IllegalArgumentException
+            || error instanceof InvalidKeyTypeException
+            || error instanceof EOFException) {
+            return BAD_REQUEST;
+        }
+        return INTERNAL_ERROR;
+    }
+
+    static ByteBuffer error(final long requestId, final Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String message = String.valueOf(cause.getMessage());
+        try {
+            return frame(requestId, status(cause), output -> {
+                byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ByteBuffer frame(final long requestId, final byte status, final Body body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(0);
+        output.writeLong(requestId);
+        output.writeByte(status);
+        body.writeTo(output);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        buffer.putInt(0, buffer.limit() - Integer.BYTES);
+        return buffer;
+    }
+}
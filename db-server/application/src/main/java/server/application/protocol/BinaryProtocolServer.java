@@ -0,0 +1,237 @@
+package server.application.protocol;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+@Component
+public class BinaryProtocolServer {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryProtocolServer.class);
+
+    private static final int INITIAL_BUFFER_SIZE = 0x10000;
+    private static final int MIN_FRAME_SIZE = Long.BYTES + Byte.BYTES + Short.BYTES;
+
+    private class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final Queue<ByteBuffer> output;
+        private ByteBuffer input;
+        private int pending;
+
+        private Connection(final SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.key = channel.register(selector, SelectionKey.OP_READ, this);
+            this.output = new ConcurrentLinkedQueue<>();
+            this.input = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        }
+
+        private void read() throws IOException {
+            if (channel.read(input) < 0) {
+                close();
+                return;
+            }
+            dispatch();
+        }
+
+        private void dispatch() throws IOException {
+            input.flip();
+            while (pending < maxPending && input.remaining() >= Integer.BYTES) {
+                int length = frameLength(input.position());
+                if (input.remaining() < Integer.BYTES + length) {
+                    break;
+                }
+                input.getInt();
+                byte[] frame = new byte[length];
+                input.get(frame);
+                pending++;
+                handler.handle(frame).whenComplete((response, error) -> send(
+                    error == null ? response : BinaryProtocolHandler.error(ByteBuffer.wrap(frame).getLong(), error)
+                ));
+            }
+            input.compact();
+            if (input.position() >= Integer.BYTES) {
+                int length = frameLength(0);
+                if (Integer.BYTES + length > input.capacity()) {
+                    grow(Integer.BYTES + length);
+                }
+            }
+            updateInterest();
+        }
+
+        private int frameLength(final int index) throws IOException {
+            int length = input.getInt(index);
+            if (length < MIN_FRAME_SIZE || length > maxFrameSize) {
+                throw new IOException("Invalid frame length " + length);
+            }
+            return length;
+        }
+
+        private void grow(final int capacity) {
+            ByteBuffer larger = ByteBuffer.allocate(capacity);
+            input.flip();
+            larger.put(input);
+            input = larger;
+        }
+
+        private void send(final ByteBuffer response) {
+            output.add(response);
+            writable.add(this);
+            selector.wakeup();
+        }
+
+        private void updateInterest() {
+            if (key.isValid()) {
+                int ops = output.isEmpty() ? 0 : SelectionKey.OP_WRITE;
+                key.interestOps(pending < maxPending ? ops | SelectionKey.OP_READ : ops);
+            }
+        }
+
+        private void write() throws IOException {
+            boolean paused = pending >= maxPending;
+            ByteBuffer buffer;
+            while ((buffer = output.peek()) != null) {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    break;
+                }
+                output.poll();
+                pending--;
+            }
+            if (paused && pending < maxPending) {
+                dispatch();
+            } else {
+                updateInterest();
+            }
+        }
+
+        private void close() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Failed to close binary protocol connection", e);
+            }
+        }
+    }
+
+    private final BinaryProtocolHandler handler;
+    private final int port;
+    private final int maxFrameSize;
+    private final int maxPending;
+    private final Queue<Connection> writable = new ConcurrentLinkedQueue<>();
+    private volatile boolean running;
+    private Selector selector;
+    private Thread thread;
+
+    public BinaryProtocolServer(
+        final BinaryProtocolHandler handler,
+        @Value("${storage.binary.port:-1}") final int port,
+        @Value("${storage.binary.max-frame-size:16777216}") final int maxFrameSize,
+        @Value("${storage.binary.max-pending:1024}") final int maxPending
+    ) {
+        this.handler = handler;
+        this.port = port;
+        this.maxFrameSize = maxFrameSize;
+        this.maxPending = maxPending;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (port < 0) {
+            return;
+        }
+        selector = Selector.open();
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        thread = new Thread(this::run, "binary-protocol");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Binary protocol listening on port {}", port);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                Connection connection;
+                while ((connection = writable.poll()) != null) {
+                    connection.updateInterest();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid()) {
+                        handle(key);
+                    }
+                }
+            } catch (ClosedSelectorException e) {
+                return;
+            } catch (IOException e) {
+                log.error("Binary protocol selector failed", e);
+            }
+        }
+    }
+
+    private void handle(final SelectionKey key) {
+        if (key.isAcceptable()) {
+            try {
+                SocketChannel channel = ((ServerSocketChannel) key.channel()).accept();
+                if (channel != null) {
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    new Connection(channel);
+                }
+            } catch (IOException e) {
+                log.error("Failed to accept binary protocol connection", e);
+            }
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                connection.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.write();
+            }
+        } catch (IOException e) {
+            log.debug("Closing binary protocol connection", e);
+            connection.close();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        thread.join();
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+}
@@ -0,0 +1,95 @@
+package server.application.services;
+
+import db.storage.StorageMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+class MicrometerStorageMetrics implements StorageMetrics {
+
+    static final String STORAGE = "storage";
+
+    private final Timer get;
+    private final Timer put;
+    private final DistributionSummary scanned;
+    private final Counter read;
+    private final Counter written;
+    private final Timer resize;
+    private final Timer lockWait;
+
+    MicrometerStorageMetrics(final MeterRegistry registry, final String storageName) {
+        this.get = Timer.builder("storage.get")
+            .description("Storage.get latency")
+            .tag(STORAGE, storageName)
+            .publishPercentileHistogram()
+            .register(registry);
+        this.put = Timer.builder("storage.put")
+            .description("Storage.put latency")
+            .tag(STORAGE, storageName)
+            .publishPercentileHistogram()
+            .register(registry);
+        this.scanned = DistributionSummary.builder("storage.bucket.scanned")
+            .description("Records visited per bucket scan")
+            .baseUnit("records")
+            .tag(STORAGE, storageName)
+            .publishPercentileHistogram()
+            .register(registry);
+        this.read = Counter.builder("storage.bucket.read")
+            .description("Bytes read from buckets")
+            .baseUnit("bytes")
+            .tag(STORAGE, storageName)
+            .register(registry);
+        this.written = Counter.builder("storage.bucket.written")
+            .description("Bytes written to buckets")
+            .baseUnit("bytes")
+            .tag(STORAGE, storageName)
+            .register(registry);
+        this.resize = Timer.builder("storage.resize")
+            .description("Capacity growth duration")
+            .tag(STORAGE, storageName)
+            .register(registry);
+        this.lockWait = Timer.builder("storage.lock.wait")
+            .description("Time spent waiting for bucket and layout locks")
+            .tag(STORAGE, storageName)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    @Override
+    public void recordGet(final long nanos) {
+        get.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordPut(final long nanos) {
+        put.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordScan(final int records) {
+        scanned.record(records);
+    }
+
+    @Override
+    public void recordRead(final long bytes) {
+        read.increment(bytes);
+    }
+
+    @Override
+    public void recordWrite(final long bytes) {
+        written.increment(bytes);
+    }
+
+    @Override
+    public void recordResize(final long nanos) {
+        resize.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordLockWait(final long nanos) {
+        lockWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,99 @@
+package server.application.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import server.application.exceptions.StorageBusyException;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class StorageExecutors {
+
+    interface StorageCall<T> {
+        T call() throws Exception;
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Integer> pending = new ConcurrentHashMap<>();
+    private final int queueCapacity;
+    private final long keepAlive;
+
+    public StorageExecutors(
+        @Value("${storage.executor.threads:16}") final int threads,
+        @Value("${storage.executor.queue-capacity:256}") final int queueCapacity,
+        @Value("${storage.executor.total-queue-capacity:4096}") final int totalQueueCapacity,
+        @Value("${storage.executor.keep-alive:60000}") final long keepAlive
+    ) {
+        this.queueCapacity = queueCapacity;
+        this.keepAlive = keepAlive;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            keepAlive,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(totalQueueCapacity),
+            task -> {
+                Thread thread = new Thread(task, "storage-io-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private boolean admit(final String storageName) {
+        boolean[] admitted = new boolean[1];
+        pending.compute(storageName, (name, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= queueCapacity) {
+                return count;
+            }
+            admitted[0] = true;
+            return current + 1;
+        });
+        return admitted[0];
+    }
+
+    private void done(final String storageName) {
+        pending.computeIfPresent(storageName, (name, count) -> count == 1 ? null : count - 1);
+    }
+
+    <T> CompletableFuture<T> submit(final String storageName, final StorageCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!admit(storageName)) {
+            future.completeExceptionally(new StorageBusyException("Storage " + storageName + " is overloaded, retry later"));
+            return future;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    done(storageName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            done(storageName);
+            future.completeExceptionally(new StorageBusyException("Server is overloaded, retry later"));
+        }
+        return future;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(keepAlive, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,226 @@
+package server.application.services;
+
+import db.storage.Storage;
+import db.storage.cache.ValueCache;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+@Component
+public class StorageRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageRegistry.class);
+
+    public static class Handle {
+        private final String storageName;
+        private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+        private Storage<Serializable> storage;
+        private int references;
+        private long lastAccess;
+        private boolean closed;
+
+        private Handle(final String storageName) {
+            this.storageName = storageName;
+        }
+
+        public String getStorageName() {
+            return storageName;
+        }
+
+        public Storage<Serializable> getStorage() {
+            return storage;
+        }
+
+        public Timer getTimer(final String operation, final BiFunction<String, String, Timer> factory) {
+            return timers.computeIfAbsent(operation, key -> factory.apply(storageName, key));
+        }
+    }
+
+    private interface StorageTask {
+        void apply(Storage<Serializable> storage) throws IOException;
+    }
+
+    private final Map<String, Handle> handles = new ConcurrentHashMap<>();
+    private final long idleTimeout;
+    private final long cacheEntries;
+    private final long cacheBytes;
+    private final int reapBuckets;
+    private final MeterRegistry meterRegistry;
+
+    public StorageRegistry(
+        @Value("${storage.registry.idle-timeout:60000}") final long idleTimeout,
+        @Value("${storage.cache.max-entries:10000}") final long cacheEntries,
+        @Value("${storage.cache.max-bytes:0}") final long cacheBytes,
+        @Value("${storage.reaper.buckets-per-run:64}") final int reapBuckets,
+        final MeterRegistry meterRegistry
+    ) {
+        this.idleTimeout = idleTimeout;
+        this.cacheEntries = cacheEntries;
+        this.cacheBytes = cacheBytes;
+        this.reapBuckets = reapBuckets;
+        this.meterRegistry = meterRegistry;
+    }
+
+    private ValueCache newCache() {
+        return cacheEntries <= 0 && cacheBytes <= 0 ? null : new ValueCache(cacheEntries, cacheBytes);
+    }
+
+    public static String normalize(final String storageName) {
+        return Path.of(storageName).toAbsolutePath().normalize().toString();
+    }
+
+    public Handle acquire(final String storageName) throws IOException, ClassNotFoundException {
+        String normalized = normalize(storageName);
+        while (true) {
+            Handle handle = handles.computeIfAbsent(normalized, Handle::new);
+            synchronized (handle) {
+                if (handle.closed) {
+                    continue;
+                }
+                if (handle.storage == null) {
+                    try {
+                        handle.storage = Storage.loadStorage(
+                            Path.of(normalized),
+                            newCache(),
+                            new MicrometerStorageMetrics(meterRegistry, normalized)
+                        );
+                    } catch (IOException | ClassNotFoundException e) {
+                        handle.closed = true;
+                        handles.remove(normalized, handle);
+                        removeMeters(normalized);
+                        throw e;
+                    }
+                }
+                handle.references++;
+                handle.lastAccess = System.currentTimeMillis();
+                return handle;
+            }
+        }
+    }
+
+    public boolean isOpen(final String storageName) {
+        return handles.containsKey(normalize(storageName));
+    }
+
+    public void release(final Handle handle) {
+        synchronized (handle) {
+            handle.references--;
+            handle.lastAccess = System.currentTimeMillis();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${storage.registry.flush-interval:10000}")
+    public void flush() {
+        forEachOpenStorage("flush", Storage::flush);
+    }
+
+    @Scheduled(fixedDelayString = "${storage.registry.compaction-interval:30000}")
+    public void compact() {
+        forEachOpenStorage("compact", Storage::compact);
+    }
+
+    @Scheduled(fixedDelayString = "${storage.registry.reap-interval:1000}")
+    public void reap() {
+        forEachOpenStorage("reap", storage -> storage.reap(reapBuckets));
+    }
+
+    @Scheduled(fixedDelayString = "${storage.registry.eviction-interval:10000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        handles.forEach((storageName, handle) -> {
+            Storage<Serializable> storage;
+            synchronized (handle) {
+                if (!isIdle(handle, now)) {
+                    return;
+                }
+                if (handle.storage == null) {
+                    close(storageName, handle);
+                    return;
+                }
+                storage = handle.storage;
+                handle.references++;
+            }
+            try {
+                storage.reap(Integer.MAX_VALUE);
+            } catch (IOException e) {
+                log.error("Failed to reap storage {}", storageName, e);
+            } finally {
+                synchronized (handle) {
+                    handle.references--;
+                    if (isIdle(handle, now)) {
+                        close(storageName, handle);
+                    }
+                }
+            }
+        });
+    }
+
+    private boolean isIdle(final Handle handle, final long now) {
+        return !handle.closed && handle.references == 0 && now - handle.lastAccess >= idleTimeout;
+    }
+
+    @PreDestroy
+    public void close() {
+        handles.forEach((storageName, handle) -> {
+            synchronized (handle) {
+                close(storageName, handle);
+            }
+        });
+    }
+
+    private void forEachOpenStorage(final String action, final StorageTask task) {
+        handles.forEach((storageName, handle) -> {
+            Storage<Serializable> storage;
+            synchronized (handle) {
+                if (handle.closed || handle.storage == null) {
+                    return;
+                }
+                storage = handle.storage;
+                handle.references++;
+            }
+            try {
+                task.apply(storage);
+            } catch (IOException e) {
+                log.error("Failed to {} storage {}", action, storageName, e);
+            } finally {
+                synchronized (handle) {
+                    handle.references--;
+                }
+            }
+        });
+    }
+
+    private void close(final String storageName, final Handle handle) {
+        handle.closed = true;
+        handles.remove(storageName, handle);
+        if (handle.storage != null) {
+            try {
+                handle.storage.close();
+            } catch (IOException e) {
+                log.error("Failed to close storage {}", storageName, e);
+            }
+        }
+        removeMeters(storageName);
+    }
+
+    private void removeMeters(final String storageName) {
+        for (Meter meter : meterRegistry.getMeters()) {
+            if (storageName.equals(meter.getId().getTag(MicrometerStorageMetrics.STORAGE))) {
+                meterRegistry.remove(meter);
+            }
+        }
+    }
+}
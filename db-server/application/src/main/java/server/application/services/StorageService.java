@@ -1,9 +1,22 @@
 package server.application.services;
 
+import db.storage.BucketFormat;
+import db.storage.Compression;
+import db.storage.Growth;
+import db.storage.ScanCursor;
+import db.storage.ScanVisitor;
 import db.storage.Storage;
+import db.storage.cache.ValueCache;
+import db.storage.codec.Codec;
 import db.storage.exceptions.InvalidKeyTypeException;
 import db.storage.parameters.StorageParameters;
+import db.storage.parameters.StorageParametersBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
+import server.application.entities.CacheStatisticsEntity;
+import server.application.entities.CreationRequest;
+import server.application.entities.KeyValueEntity;
 import server.application.exceptions.InvalidStorageNameException;
 import server.application.exceptions.NoSuchKeyTypeException;
 import server.application.exceptions.NoSuchStorageException;
@@ -13,12 +26,39 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 public class StorageService {
 
     private static final int DEFAULT_CAPACITY = 4;
     private static final String lineSeparator = System.lineSeparator();
+    private static final String UNRESOLVED = "unresolved";
+
+    private interface StorageAction<T> {
+        T apply(Storage<Serializable> storage) throws IOException, InvalidKeyTypeException;
+    }
+
+    private final StorageRegistry storageRegistry;
+    private final StorageExecutors storageExecutors;
+    private final MeterRegistry meterRegistry;
+    private final List<Consumer<String>> creationListeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Timer> unresolvedTimers = new ConcurrentHashMap<>();
+
+    public StorageService(
+        final StorageRegistry storageRegistry,
+        final StorageExecutors storageExecutors,
+        final MeterRegistry meterRegistry
+    ) {
+        this.storageRegistry = storageRegistry;
+        this.storageExecutors = storageExecutors;
+        this.meterRegistry = meterRegistry;
+    }
 
     private boolean exists(final String storageName) {
         return Files.exists(Path.of(storageName));
@@ -33,51 +73,307 @@ public class StorageService {
         }
     }
 
+    private List<Path> getShards(final CreationRequest creation) {
+        List<Path> shards = new ArrayList<>();
+        if (creation.getShards() != null) {
+            Path name = Path.of(StorageRegistry.normalize(creation.getStorageName())).getFileName();
+            for (String root : creation.getShards()) {
+                shards.add(Path.of(root).resolve(name));
+            }
+        }
+        return shards;
+    }
+
+    private <K extends Serializable> StorageParameters<K> getParameters(
+        final Class<K> keyToken,
+        final CreationRequest creation
+    ) {
+        StorageParametersBuilder<K> builder = StorageParameters.newBuilder(keyToken)
+            .capacity(DEFAULT_CAPACITY)
+            .bucketFormat(creation.getBucketFormat() == null ? BucketFormat.OBJECT_STREAM : creation.getBucketFormat())
+            .growth(creation.getGrowth() == null ? Growth.DOUBLING : creation.getGrowth())
+            .indexed(Boolean.TRUE.equals(creation.getIndexed()))
+            .ordered(Boolean.TRUE.equals(creation.getOrdered()))
+            .fsyncPolicy(creation.getFsyncPolicy())
+            .shards(getShards(creation))
+            .compression(creation.getCompression() == null ? Compression.NONE : creation.getCompression());
+        if (creation.getFsyncInterval() != null) {
+            builder.fsyncInterval(creation.getFsyncInterval());
+        }
+        if (creation.getOrderedLimit() != null) {
+            builder.orderedLimit(creation.getOrderedLimit());
+        }
+        if (creation.getFalsePositiveRate() != null) {
+            builder.falsePositiveRate(creation.getFalsePositiveRate());
+        }
+        return builder.build();
+    }
+
     public Storage<? extends Serializable> newStorage(
-        final String storageName,
-        final String keyType
+        final CreationRequest creation
     ) throws NoSuchKeyTypeException, InvalidStorageNameException, IOException, StorageAlreadyExistsException {
+        String storageName = creation.getStorageName();
         if (exists(storageName)) {
             throw new StorageAlreadyExistsException("Storage " + storageName + " already exists");
         }
+        for (Path shard : getShards(creation)) {
+            if (Files.exists(shard)) {
+                throw new StorageAlreadyExistsException("Shard directory " + shard + " already exists");
+            }
+        }
         if (storageName.contains(lineSeparator)) {
             throw new InvalidStorageNameException("Storage name can't contain " + lineSeparator);
         }
-        Class<? extends Serializable> keyToken = getKeyToken(keyType);
-        return Storage.newStorage(
-            Path.of(storageName),
-            StorageParameters.newBuilder(keyToken).capacity(DEFAULT_CAPACITY).build()
-        );
+        Class<? extends Serializable> keyToken = getKeyToken(creation.getKeyType());
+        return Storage.newStorage(Path.of(storageName), getParameters(keyToken, creation));
     }
 
     public void createStorage(
-        final String storageName,
-        final String keyType
+        final CreationRequest creation
     ) throws InvalidStorageNameException, NoSuchKeyTypeException, IOException, StorageAlreadyExistsException {
-        newStorage(storageName, keyType).close();
+        newStorage(creation).close();
+        for (Consumer<String> listener : creationListeners) {
+            listener.accept(StorageRegistry.normalize(creation.getStorageName()));
+        }
     }
 
-    public Storage<Serializable> getExistingStorage(
-        final String storageName
-    ) throws IOException, ClassNotFoundException, NoSuchStorageException {
+    public void addCreationListener(final Consumer<String> listener) {
+        creationListeners.add(listener);
+    }
+
+    public void checkExists(final String storageName) throws NoSuchStorageException {
         if (!exists(storageName)) {
             throw new NoSuchStorageException("Storage " + storageName + " doesn't exist");
         }
-        return Storage.loadStorage(Path.of(storageName));
+    }
+
+    private <T> T withExistingStorage(
+        final String storageName,
+        final StorageAction<T> action
+    ) throws IOException, ClassNotFoundException, NoSuchStorageException, InvalidKeyTypeException {
+        checkExists(storageName);
+        StorageRegistry.Handle handle = storageRegistry.acquire(storageName);
+        try {
+            return action.apply(handle.getStorage());
+        } finally {
+            storageRegistry.release(handle);
+        }
+    }
+
+    private <T> T timed(
+        final String operation,
+        final String storageName,
+        final StorageAction<T> action
+    ) throws IOException, ClassNotFoundException, NoSuchStorageException, InvalidKeyTypeException {
+        long start = System.nanoTime();
+        StorageRegistry.Handle handle = null;
+        try {
+            checkExists(storageName);
+            handle = storageRegistry.acquire(storageName);
+            try {
+                return action.apply(handle.getStorage());
+            } finally {
+                storageRegistry.release(handle);
+            }
+        } finally {
+            Timer timer = handle == null
+                ? unresolvedTimers.computeIfAbsent(operation, key -> requestTimer(UNRESOLVED, key))
+                : handle.getTimer(operation, this::requestTimer);
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer requestTimer(final String storageName, final String operation) {
+        return Timer.builder("storage.requests")
+            .description("StorageService request latency, including storage acquisition")
+            .tag(MicrometerStorageMetrics.STORAGE, storageName)
+            .tag("operation", operation)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    private static boolean isIntegral(final Serializable key) {
+        return key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte;
+    }
+
+    private static Serializable toKeyClass(final Storage<Serializable> storage, final Serializable key) {
+        if (key == null || !isIntegral(key)) {
+            return key;
+        }
+        Class<?> keyClass = storage.getStorageParameters().getKeyClass();
+        if (keyClass == Long.class) {
+            return ((Number) key).longValue();
+        } else if (keyClass == Integer.class) {
+            return ((Number) key).intValue();
+        }
+        return key;
     }
 
     public void put(
-        final Storage<Serializable> storage,
+        final String storageName,
         final Serializable key,
-        final Serializable value
-    ) throws IOException, InvalidKeyTypeException {
-        storage.put(key, value);
+        final Serializable value,
+        final Long ttl
+    ) throws IOException, ClassNotFoundException, NoSuchStorageException, InvalidKeyTypeException {
+        timed("put", storageName, storage -> {
+            if (ttl == null) {
+                storage.put(toKeyClass(storage, key), value);
+            } else {
+                storage.put(toKeyClass(storage, key), value, ttl);
+            }
+            return null;
+        });
     }
 
     public Serializable get(
-        final Storage<Serializable> storage,
+        final String storageName,
         final Serializable key
-    ) throws IOException, InvalidKeyTypeException {
-        return storage.get(key);
+    ) throws IOException, ClassNotFoundException, NoSuchStorageException, InvalidKeyTypeException {
+        return timed("get", storageName, storage -> storage.get(toKeyClass(storage, key)));
+    }
+
+    public void putAll(
+        final String storageName,
+        final List<KeyValueEntity> entries,
+        final Long ttl
+    ) throws IOException, ClassNotFoundException, NoSuchStorageException, InvalidKeyTypeException {
+        timed("putAll", storageName, storage -> {
+            Map<Serializable, Serializable> batch = new LinkedHashMap<>();
+            for (KeyValueEntity entry : entries) {
+                batch.put(toKeyClass(storage, entry.getKey()), entry.getValue());
+            }
+            if (ttl == null) {
+                storage.putAll(batch);
+            } else {
+                storage.putAll(batch, ttl);
+            }
+            return null;
+        });
+    }
+
+    public List<Serializable> getAll(
+        final String storageName,
+        final List<Serializable> keys
+    ) throws IOException, ClassNotFoundException, NoSuchStorageException, InvalidKeyTypeException {
+        return timed("getAll", storageName, storage -> {
+            List<Serializable> converted = new ArrayList<>(keys.size());
+            for (Serializable key : keys) {
+                converted.add(toKeyClass(storage, key));
+            }
+            Map<Serializable, Serializable> values = storage.getAll(converted);
+            List<Serializable> result = new ArrayList<>(converted.size());
+            for (Serializable key : converted) {
+                result.add(values.get(key));
+            }
+            return result;
+        });
+    }
+
+    public List<KeyValueEntity> range(
+        final String storageName,
+        final Serializable from,
+        final Serializable to,
+        final String prefix,
+        final int limit
+    ) throws IOException, ClassNotFoundException, NoSuchStorageException, InvalidKeyTypeException {
+        return timed("range", storageName, storage -> {
+            Map<Serializable, Serializable> values = prefix == null
+                ? storage.range(toKeyClass(storage, from), toKeyClass(storage, to), limit)
+                : storage.prefix(prefix, limit);
+            List<KeyValueEntity> result = new ArrayList<>(values.size());
+            values.forEach((key, value) -> result.add(new KeyValueEntity(key, value)));
+            return result;
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(final String storageName, final StorageExecutors.StorageCall<T> call) {
+        String normalized;
+        try {
+            normalized = StorageRegistry.normalize(storageName);
+            if (!storageRegistry.isOpen(normalized)) {
+                checkExists(storageName);
+            }
+        } catch (NoSuchStorageException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return storageExecutors.submit(normalized, call);
+    }
+
+    public CompletableFuture<Void> putAsync(
+        final String storageName,
+        final Serializable key,
+        final Serializable value,
+        final Long ttl
+    ) {
+        return submit(storageName, () -> {
+            put(storageName, key, value, ttl);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Serializable> getAsync(final String storageName, final Serializable key) {
+        return submit(storageName, () -> get(storageName, key));
+    }
+
+    public CompletableFuture<Void> putAllAsync(
+        final String storageName,
+        final List<KeyValueEntity> entries,
+        final Long ttl
+    ) {
+        return submit(storageName, () -> {
+            putAll(storageName, entries, ttl);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<Serializable>> getAllAsync(final String storageName, final List<Serializable> keys) {
+        return submit(storageName, () -> getAll(storageName, keys));
+    }
+
+    public CompletableFuture<List<KeyValueEntity>> rangeAsync(
+        final String storageName,
+        final Serializable from,
+        final Serializable to,
+        final String prefix,
+        final int limit
+    ) {
+        return submit(storageName, () -> range(storageName, from, to, prefix, limit));
+    }
+
+    public ScanCursor scan(
+        final String storageName,
+        final ScanCursor cursor,
+        final int pageSize,
+        final ScanVisitor<Serializable> visitor
+    ) throws IOException, ClassNotFoundException, NoSuchStorageException, InvalidKeyTypeException {
+        return timed("scan", storageName, storage -> storage.scan(cursor, pageSize, visitor));
+    }
+
+    public Codec<Serializable> getKeyCodec(
+        final String storageName
+    ) throws IOException, ClassNotFoundException, NoSuchStorageException, InvalidKeyTypeException {
+        return withExistingStorage(storageName, storage -> storage.getStorageParameters().getKeyCodec());
+    }
+
+    public CompletableFuture<Codec<Serializable>> getKeyCodecAsync(final String storageName) {
+        return submit(storageName, () -> getKeyCodec(storageName));
+    }
+
+    public CacheStatisticsEntity getCacheStatistics(
+        final String storageName
+    ) throws IOException, ClassNotFoundException, NoSuchStorageException, InvalidKeyTypeException {
+        return withExistingStorage(storageName, storage -> {
+            ValueCache cache = storage.getCache();
+            if (cache == null) {
+                return new CacheStatisticsEntity(0, 0, 0, 0, 0);
+            }
+            return new CacheStatisticsEntity(
+                cache.getHits(),
+                cache.getMisses(),
+                cache.getEvictions(),
+                cache.getSize(),
+                cache.getWeight()
+            );
+        });
     }
 }
@@ -0,0 +1,146 @@
+package server.application.protocol;
+
+import db.storage.codec.Codec;
+import db.storage.codec.Codecs;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import server.application.entities.CreationRequest;
+import server.application.services.StorageExecutors;
+import server.application.services.StorageRegistry;
+import server.application.services.StorageService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BinaryProtocolHandlerTest {
+
+    private interface Body {
+        void writeTo(DataOutputStream output) throws Exception;
+    }
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StorageRegistry storageRegistry;
+    private StorageExecutors storageExecutors;
+    private BinaryProtocolHandler handler;
+    private String storageName;
+
+    @BeforeEach
+    void setUp(@TempDir Path root) throws Exception {
+        storageRegistry = new StorageRegistry(60000, 0, 0, 64, meterRegistry);
+        storageExecutors = new StorageExecutors(2, 16, 64, 1000);
+        StorageService storageService = new StorageService(storageRegistry, storageExecutors, meterRegistry);
+        storageName = root.resolve("storage").toString();
+        storageService.createStorage(new CreationRequest(
+            storageName, String.class.getName(), null, null, null, null, null, null, null, null, null, null
+        ));
+        handler = new BinaryProtocolHandler(storageService);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        storageExecutors.shutdown();
+        storageRegistry.close();
+    }
+
+    private static byte[] encode(Codec<Serializable> codec, Serializable value) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        codec.write(value, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static void writeBytes(DataOutputStream output, byte[] bytes) throws Exception {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static void writeKey(DataOutputStream output, String key) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Codecs.forClass(String.class).write(key, new DataOutputStream(bytes));
+        writeBytes(output, bytes.toByteArray());
+    }
+
+    private byte[] frame(long requestId, byte opcode, String name, Body body) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeLong(requestId);
+        output.writeByte(opcode);
+        byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+        output.writeShort(encodedName.length);
+        output.write(encodedName);
+        body.writeTo(output);
+        return bytes.toByteArray();
+    }
+
+    private ByteBuffer call(byte[] frame) throws Exception {
+        ByteBuffer response = handler.handle(frame).get();
+        assertEquals(response.limit() - Integer.BYTES, response.getInt());
+        return response;
+    }
+
+    private byte status(long requestId, byte[] frame) throws Exception {
+        ByteBuffer response = call(frame);
+        assertEquals(requestId, response.getLong());
+        return response.get();
+    }
+
+    @Test
+    void putsAndGets() throws Exception {
+        byte[] value = encode(Codecs.forValues(), "value");
+        assertEquals(BinaryProtocolHandler.OK, status(1, frame(1, BinaryProtocolHandler.PUT, storageName, output -> {
+            output.writeLong(0);
+            writeKey(output, "key");
+            writeBytes(output, value);
+        })));
+
+        ByteBuffer response = call(frame(2, BinaryProtocolHandler.GET, storageName, output -> writeKey(output, "key")));
+        assertEquals(2, response.getLong());
+        assertEquals(BinaryProtocolHandler.OK, response.get());
+        byte[] read = new byte[response.getInt()];
+        response.get(read);
+        assertEquals(ByteBuffer.wrap(value), ByteBuffer.wrap(read));
+    }
+
+    @Test
+    void rejectsSerializedObjects() throws Exception {
+        byte[] value = encode(Codecs.forValues(), new ArrayList<String>());
+        assertEquals(BinaryProtocolHandler.BAD_REQUEST, status(3, frame(3, BinaryProtocolHandler.PUT, storageName, output -> {
+            output.writeLong(0);
+            writeKey(output, "key");
+            writeBytes(output, value);
+        })));
+    }
+
+    @Test
+    void rejectsLengthsBeyondTheFrame() throws Exception {
+        assertEquals(BinaryProtocolHandler.BAD_REQUEST, status(4, frame(4, BinaryProtocolHandler.GET, storageName, output -> {
+            output.writeInt(Integer.MAX_VALUE);
+            output.writeInt(0);
+        })));
+        assertEquals(BinaryProtocolHandler.BAD_REQUEST, status(5, frame(5, BinaryProtocolHandler.BATCH_GET, storageName, output -> {
+            output.writeInt(Integer.MAX_VALUE);
+            writeKey(output, "key");
+        })));
+        assertEquals(BinaryProtocolHandler.BAD_REQUEST, status(6, frame(6, BinaryProtocolHandler.PUT, storageName, output -> {
+            output.writeLong(0);
+            writeKey(output, "key");
+            writeBytes(output, new byte[] {1, 0x7f, 0, 0, 0});
+        })));
+    }
+
+    @Test
+    void rejectsTruncatedAndUnknownRequests() throws Exception {
+        assertEquals(BinaryProtocolHandler.BAD_REQUEST, status(7, frame(7, BinaryProtocolHandler.GET, storageName, output -> {})));
+        assertEquals(BinaryProtocolHandler.BAD_REQUEST, status(8, frame(8, (byte) 42, storageName, output -> {})));
+        assertEquals(BinaryProtocolHandler.NOT_FOUND, status(9, frame(9, BinaryProtocolHandler.GET, storageName + "-missing", output -> writeKey(output, "key"))));
+    }
+}
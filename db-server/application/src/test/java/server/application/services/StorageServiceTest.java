@@ -0,0 +1,95 @@
+package server.application.services;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import server.application.entities.CreationRequest;
+import server.application.exceptions.NoSuchStorageException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StorageServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StorageRegistry storageRegistry;
+    private StorageExecutors storageExecutors;
+    private StorageService storageService;
+    private String storageName;
+
+    private Path root;
+
+    @BeforeEach
+    void setUp(@TempDir Path root) throws Exception {
+        storageRegistry = new StorageRegistry(60000, 0, 0, 64, meterRegistry);
+        storageExecutors = new StorageExecutors(2, 16, 64, 1000);
+        storageService = new StorageService(storageRegistry, storageExecutors, meterRegistry);
+        this.root = root;
+        storageName = StorageRegistry.normalize(root.resolve("storage").toString());
+        storageService.createStorage(new CreationRequest(
+            storageName, String.class.getName(), null, null, null, null, null, null, null, null, null, null
+        ));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        storageExecutors.shutdown();
+        storageRegistry.close();
+    }
+
+    private Timer requests(String storage, String operation) {
+        return meterRegistry.find("storage.requests")
+            .tag(MicrometerStorageMetrics.STORAGE, storage)
+            .tag("operation", operation)
+            .timer();
+    }
+
+    @Test
+    void reusesRequestTimersUntilTheStorageIsClosed() throws Exception {
+        storageService.put(storageName, "key", "value", null);
+        storageService.get(storageName, "key");
+        Timer timer = requests(storageName, "get");
+        storageService.get(storageName, "key");
+        assertSame(timer, requests(storageName, "get"));
+        assertEquals(2, timer.count());
+
+        storageRegistry.close();
+        assertNull(requests(storageName, "get"));
+
+        storageService.get(storageName, "key");
+        assertEquals(1, requests(storageName, "get").count());
+    }
+
+    @Test
+    void timesUnresolvedRequests() throws Exception {
+        String missing = storageName + "-missing";
+        for (int i = 0; i < 2; i++) {
+            assertThrows(NoSuchStorageException.class, () -> storageService.get(missing, "key"));
+        }
+        assertEquals(2, requests("unresolved", "get").count());
+    }
+
+    @Test
+    void placesShardsUnderTheirRoots() throws Exception {
+        Path shards = Files.createDirectory(root.resolve("shards"));
+        String sharded = Files.createDirectory(root.resolve("nested")).resolve("sharded").toString();
+        storageService.createStorage(new CreationRequest(
+            sharded, String.class.getName(), null, null, null, null, null, null,
+            List.of(shards.toString()), null, null, null
+        ));
+        assertTrue(Files.isDirectory(shards.resolve("sharded")));
+
+        storageService.put(sharded, "key", "value", null);
+        assertEquals("value", storageService.get(sharded, "key"));
+    }
+}
@@ -0,0 +1,65 @@
+package db.benchmarks;
+
+import db.storage.BucketFormat;
+import db.storage.Growth;
+import db.storage.Storage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GrowthBenchmark {
+    @State(Scope.Thread)
+    public static class FullStorage {
+        @Param({"OBJECT_STREAM", "LOG", "MAPPED"})
+        BucketFormat bucketFormat;
+
+        @Param({"DOUBLING", "LINEAR"})
+        Growth growth;
+
+        @Param({"1024", "16384"})
+        int size;
+
+        private Path directory;
+        private Storage<Serializable> storage;
+        private byte[] value;
+
+        @Setup(Level.Invocation)
+        public void setUp() throws Exception {
+            directory = Files.createTempDirectory("storage-benchmark");
+            storage = Storages.newStorage(directory, KeyType.LONG, bucketFormat, growth, size);
+            value = new byte[16];
+            Storages.fill(storage, KeyType.LONG, 0, size, value);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws Exception {
+            storage.close();
+            Storages.delete(directory);
+        }
+    }
+
+    @Benchmark
+    public void ensureCapacity(FullStorage state) throws Exception {
+        state.storage.put(KeyType.LONG.key(state.size), state.value);
+    }
+}
@@ -0,0 +1,56 @@
+package db.benchmarks;
+
+import db.storage.HashFunction;
+
+import java.io.Serializable;
+
+public enum KeyType {
+    STRING(String.class, null) {
+        @Override
+        Serializable key(long i) {
+            return "key-" + i;
+        }
+    },
+    LONG(Long.class, null) {
+        @Override
+        Serializable key(long i) {
+            return i;
+        }
+    },
+    LONG_MIXED(Long.class, new MixingHash()) {
+        @Override
+        Serializable key(long i) {
+            return i;
+        }
+    };
+
+    private static class MixingHash implements HashFunction<Long> {
+        private static final long serialVersionUID = 3170291556376129474L;
+
+        @Override
+        public int hash(Long value) {
+            long x = value;
+            x = (x ^ (x >>> 33)) * 0xFF51AFD7ED558CCDL;
+            x = (x ^ (x >>> 33)) * 0xC4CEB9FE1A85EC53L;
+            return (int) (x ^ (x >>> 33));
+        }
+    }
+
+    private final Class<? extends Serializable> keyClass;
+    private final HashFunction<? extends Serializable> hash;
+
+    KeyType(Class<? extends Serializable> keyClass, HashFunction<? extends Serializable> hash) {
+        this.keyClass = keyClass;
+        this.hash = hash;
+    }
+
+    Class<? extends Serializable> getKeyClass() {
+        return keyClass;
+    }
+
+    HashFunction<? extends Serializable> getHash() {
+        return hash;
+    }
+
+    abstract Serializable key(long i);
+}
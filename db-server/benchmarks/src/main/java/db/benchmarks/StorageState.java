@@ -0,0 +1,65 @@
+package db.benchmarks;
+
+import db.storage.BucketFormat;
+import db.storage.Growth;
+import db.storage.Storage;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+public class StorageState {
+    @Param({"OBJECT_STREAM", "LOG", "MAPPED"})
+    BucketFormat bucketFormat;
+
+    @Param({"STRING", "LONG", "LONG_MIXED"})
+    KeyType keyType;
+
+    @Param({"16", "1024"})
+    int valueSize;
+
+    @Param({"10000"})
+    int keys;
+
+    Path directory;
+    Storage<Serializable> storage;
+    byte[] value;
+    private AtomicLong fresh;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("storage-benchmark");
+        storage = Storages.newStorage(directory, keyType, bucketFormat, Growth.DOUBLING, keys);
+        value = new byte[valueSize];
+        ThreadLocalRandom.current().nextBytes(value);
+        Storages.fill(storage, keyType, 0, keys, value);
+        fresh = new AtomicLong(keys);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        storage.close();
+        Storages.delete(directory);
+    }
+
+    Serializable existingKey() {
+        return keyType.key(ThreadLocalRandom.current().nextInt(keys));
+    }
+
+    Serializable absentKey() {
+        return keyType.key(-1 - ThreadLocalRandom.current().nextInt(keys));
+    }
+
+    Serializable freshKey() {
+        return keyType.key(fresh.getAndIncrement());
+    }
+}
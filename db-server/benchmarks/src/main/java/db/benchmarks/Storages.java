@@ -0,0 +1,69 @@
+package db.benchmarks;
+
+import db.storage.BucketFormat;
+import db.storage.Growth;
+import db.storage.HashFunction;
+import db.storage.Storage;
+import db.storage.parameters.StorageParameters;
+import db.storage.parameters.StorageParametersBuilder;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+final class Storages {
+    private static final String STORAGE = "storage";
+    private static final int BATCH = 0x1000;
+
+    private Storages() {}
+
+    @SuppressWarnings("unchecked")
+    static StorageParametersBuilder<Serializable> newBuilder(KeyType keyType) {
+        StorageParametersBuilder<Serializable> builder =
+            StorageParameters.newBuilder((Class<Serializable>) keyType.getKeyClass());
+        if (keyType.getHash() != null) {
+            builder.hash((HashFunction<Serializable>) keyType.getHash());
+        }
+        return builder;
+    }
+
+    static Storage<Serializable> newStorage(
+        Path directory,
+        KeyType keyType,
+        BucketFormat bucketFormat,
+        Growth growth,
+        int capacity
+    ) throws IOException {
+        return Storage.newStorage(
+            directory.resolve(STORAGE),
+            newBuilder(keyType).bucketFormat(bucketFormat).growth(growth).capacity(capacity).build()
+        );
+    }
+
+    static void fill(Storage<Serializable> storage, KeyType keyType, long from, long to, byte[] value) throws Exception {
+        Map<Serializable, Serializable> batch = new LinkedHashMap<>();
+        for (long i = from; i < to; i++) {
+            batch.put(keyType.key(i), value);
+            if (batch.size() == BATCH) {
+                storage.putAll(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            storage.putAll(batch);
+        }
+    }
+
+    static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
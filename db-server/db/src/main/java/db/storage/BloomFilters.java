@@ -0,0 +1,133 @@
+package db.storage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class BloomFilters {
+    private static final int EXPECTED_KEYS = 4;
+    private static final int MAX_HASHES = 16;
+
+    private static long mix(int hash) {
+        long x = hash * 0x9E3779B97F4A7C15L;
+        x ^= x >>> 32;
+        x *= 0xBF58476D1CE4E5B9L;
+        return x ^ (x >>> 29);
+    }
+
+    private final Path path;
+    private final int words;
+    private final int hashes;
+    private final AtomicBoolean saved;
+    private int capacity;
+    private long[] bits;
+
+    BloomFilters(double falsePositiveRate, int capacity, Path path) {
+        double bitsPerKey = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.path = path;
+        this.words = (int) Math.max(1, Math.ceil(bitsPerKey * EXPECTED_KEYS / Long.SIZE));
+        this.hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(bitsPerKey * Math.log(2))));
+        this.saved = new AtomicBoolean(false);
+        this.capacity = capacity;
+        this.bits = new long[capacity * words];
+    }
+
+    private int bit(long mixed, int i) {
+        int h1 = (int) mixed;
+        int h2 = (int) (mixed >>> 32) | 1;
+        return Integer.remainderUnsigned(h1 + i * h2, words * Long.SIZE);
+    }
+
+    boolean mightContain(int bucket, int hash) {
+        long mixed = mix(hash);
+        int offset = bucket * words;
+        for (int i = 0; i < hashes; i++) {
+            int bit = bit(mixed, i);
+            if ((bits[offset + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void add(int bucket, int hash) throws IOException {
+        touch();
+        long mixed = mix(hash);
+        int offset = bucket * words;
+        for (int i = 0; i < hashes; i++) {
+            int bit = bit(mixed, i);
+            bits[offset + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    void clear(int bucket) throws IOException {
+        touch();
+        Arrays.fill(bits, bucket * words, (bucket + 1) * words, 0);
+    }
+
+    void resize(int capacity) throws IOException {
+        touch();
+        int length = capacity * words;
+        if (length > bits.length) {
+            bits = Arrays.copyOf(bits, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(length, 2L * bits.length)));
+        } else if (capacity < this.capacity) {
+            Arrays.fill(bits, length, this.capacity * words, 0);
+        }
+        this.capacity = capacity;
+    }
+
+    void adopt(BloomFilters other) throws IOException {
+        touch();
+        capacity = other.capacity;
+        bits = other.bits;
+    }
+
+    private void touch() throws IOException {
+        if (saved.compareAndSet(true, false)) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    boolean load(int capacity) throws IOException {
+        if (Files.notExists(path)) {
+            return false;
+        }
+        try (DataInputStream input = new DataInputStream(new PooledInputStream(path))) {
+            if (input.readInt() != capacity || input.readInt() != words || input.readInt() != hashes) {
+                return false;
+            }
+            long[] loaded = new long[capacity * words];
+            for (int i = 0; i < loaded.length; i++) {
+                loaded[i] = input.readLong();
+            }
+            this.capacity = capacity;
+            bits = loaded;
+            saved.set(true);
+            return true;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    void save() throws IOException {
+        if (saved.get()) {
+            return;
+        }
+        try (DataOutputStream output = new DataOutputStream(
+            new PooledOutputStream(path, 3L * Integer.BYTES + (long) capacity * words * Long.BYTES)
+        )) {
+            output.writeInt(capacity);
+            output.writeInt(words);
+            output.writeInt(hashes);
+            for (int i = 0; i < capacity * words; i++) {
+                output.writeLong(bits[i]);
+            }
+        }
+        saved.set(true);
+    }
+}
@@ -0,0 +1,7 @@
+package db.storage;
+
+public enum BucketFormat {
+    OBJECT_STREAM,
+    LOG,
+    MAPPED
+}
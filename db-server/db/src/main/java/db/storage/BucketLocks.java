@@ -0,0 +1,88 @@
+package db.storage;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+class BucketLocks {
+    private static final int STRIPES = 64;
+
+    interface BucketFunction {
+        int apply();
+    }
+
+    private final StampedLock resizeLock;
+    private final ReentrantReadWriteLock[] stripes;
+    private final StorageMetrics metrics;
+
+    BucketLocks(StorageMetrics metrics) {
+        this.metrics = metrics;
+        this.resizeLock = new StampedLock();
+        this.stripes = new ReentrantReadWriteLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    private Lock stripe(int bucket, boolean exclusive) {
+        ReentrantReadWriteLock stripe = stripes[bucket & (STRIPES - 1)];
+        return exclusive ? stripe.writeLock() : stripe.readLock();
+    }
+
+    int lock(BucketFunction bucketFunction, boolean exclusive) {
+        long start = System.nanoTime();
+        while (true) {
+            long stamp = resizeLock.tryOptimisticRead();
+            if (stamp == 0) {
+                resizeLock.unlockRead(resizeLock.readLock());
+                continue;
+            }
+            int bucket = bucketFunction.apply();
+            Lock lock = stripe(bucket, exclusive);
+            lock.lock();
+            if (resizeLock.validate(stamp)) {
+                metrics.recordLockWait(System.nanoTime() - start);
+                return bucket;
+            }
+            lock.unlock();
+        }
+    }
+
+    void lock(int bucket, boolean exclusive) {
+        long start = System.nanoTime();
+        stripe(bucket, exclusive).lock();
+        metrics.recordLockWait(System.nanoTime() - start);
+    }
+
+    void unlock(int bucket, boolean exclusive) {
+        stripe(bucket, exclusive).unlock();
+    }
+
+    long lockLayout() {
+        long start = System.nanoTime();
+        long stamp = resizeLock.readLock();
+        metrics.recordLockWait(System.nanoTime() - start);
+        return stamp;
+    }
+
+    void unlockLayout(long stamp) {
+        resizeLock.unlockRead(stamp);
+    }
+
+    long lockAll() {
+        long start = System.nanoTime();
+        long stamp = resizeLock.writeLock();
+        for (ReentrantReadWriteLock stripe : stripes) {
+            stripe.writeLock().lock();
+        }
+        metrics.recordLockWait(System.nanoTime() - start);
+        return stamp;
+    }
+
+    void unlockAll(long stamp) {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].writeLock().unlock();
+        }
+        resizeLock.unlockWrite(stamp);
+    }
+}
@@ -0,0 +1,125 @@
+package db.storage;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+abstract class Buckets {
+    private static final String RETIRED = ".retired";
+
+    interface Visitor {
+        boolean visit(KeyValuePair<Serializable, Serializable> pair, long position) throws IOException;
+    }
+
+    interface Writer {
+        long write(KeyValuePair<?, ?> pair) throws IOException;
+    }
+
+    interface Content {
+        void writeTo(Writer writer) throws IOException;
+    }
+
+    interface BucketTask<T> {
+        void apply(int bucket, T value) throws IOException;
+    }
+
+    static Buckets of(
+        BucketFormat format,
+        Records records,
+        Path dataPath,
+        Path temporaryPath,
+        StorageMetrics metrics
+    ) throws IOException {
+        switch (format) {
+            case LOG:
+                return new LogBuckets(dataPath, temporaryPath, records, metrics);
+            case MAPPED:
+                return new MappedBuckets(dataPath, records, metrics);
+            case OBJECT_STREAM:
+            default:
+                return new ObjectStreamBuckets(dataPath, temporaryPath, records.getCompression(), metrics);
+        }
+    }
+
+    abstract void forEach(int bucket, Visitor visitor) throws IOException;
+
+    abstract long append(int bucket, KeyValuePair<?, ?> pair) throws IOException;
+
+    void append(int bucket, Content content) throws IOException {
+        content.writeTo(pair -> append(bucket, pair));
+    }
+
+    <T> void forEachGroup(Map<Integer, T> groups, BucketTask<T> task) throws IOException {
+        for (Map.Entry<Integer, T> group : groups.entrySet()) {
+            task.apply(group.getKey(), group.getValue());
+        }
+    }
+
+    abstract void rewrite(int bucket, Content content) throws IOException;
+
+    abstract void delete(int bucket) throws IOException;
+
+    abstract void adopt(Buckets other, int buckets) throws IOException;
+
+    private static Path retired(Path current) {
+        return current.resolveSibling(current.getFileName() + RETIRED);
+    }
+
+    static void swap(Path current, Path replacement) throws IOException {
+        Files.move(current, retired(current), StandardCopyOption.ATOMIC_MOVE);
+        Files.move(replacement, current, StandardCopyOption.ATOMIC_MOVE);
+        sync(current.getParent());
+        sync(replacement.getParent());
+    }
+
+    static void recover(Path current, Path replacement, boolean committed) throws IOException {
+        Path retired = retired(current);
+        if (committed && Files.exists(replacement)) {
+            if (Files.exists(current)) {
+                deleteTree(retired);
+                Files.move(current, retired, StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.move(replacement, current, StandardCopyOption.ATOMIC_MOVE);
+            sync(current.getParent());
+        } else if (Files.notExists(current) && Files.exists(retired)) {
+            Files.move(retired, current, StandardCopyOption.ATOMIC_MOVE);
+            sync(current.getParent());
+        }
+        discard(current);
+    }
+
+    static void discard(Path current) throws IOException {
+        deleteTree(retired(current));
+    }
+
+    static void deleteTree(Path root) throws IOException {
+        if (Files.notExists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path stale : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(stale);
+            }
+        }
+    }
+
+    static void sync(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (UnsupportedOperationException | AccessDeniedException ignored) {
+        }
+    }
+
+    void flush() throws IOException {}
+
+    void close() throws IOException {}
+}
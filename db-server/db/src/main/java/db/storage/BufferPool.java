@@ -0,0 +1,68 @@
+package db.storage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class BufferPool {
+    private static final int MIN_SHIFT = 12;
+    private static final int MAX_SHIFT = 20;
+    private static final long SIZE_CLASS_BUDGET = 0x800000;
+
+    private static final List<ArrayBlockingQueue<ByteBuffer>> pools = newPools();
+    private static final AtomicLong acquisitions = new AtomicLong();
+    private static final AtomicLong allocations = new AtomicLong();
+    private static final AtomicLong allocatedBytes = new AtomicLong();
+    private static final AtomicLong discards = new AtomicLong();
+
+    private BufferPool() {}
+
+    private static List<ArrayBlockingQueue<ByteBuffer>> newPools() {
+        List<ArrayBlockingQueue<ByteBuffer>> pools = new ArrayList<>(MAX_SHIFT - MIN_SHIFT + 1);
+        for (int shift = MIN_SHIFT; shift <= MAX_SHIFT; shift++) {
+            pools.add(new ArrayBlockingQueue<>((int) (SIZE_CLASS_BUDGET >> shift)));
+        }
+        return List.copyOf(pools);
+    }
+
+    private static int sizeClass(long size) {
+        int shift = 64 - Long.numberOfLeadingZeros(Math.max(size, 1) - 1);
+        return Math.min(Math.max(shift, MIN_SHIFT), MAX_SHIFT) - MIN_SHIFT;
+    }
+
+    static ByteBuffer acquire(long size) {
+        acquisitions.incrementAndGet();
+        int sizeClass = sizeClass(size);
+        ByteBuffer buffer = pools.get(sizeClass).poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(1 << (MIN_SHIFT + sizeClass));
+            allocations.incrementAndGet();
+            allocatedBytes.addAndGet(buffer.capacity());
+        }
+        return buffer.clear();
+    }
+
+    static void release(ByteBuffer buffer) {
+        if (!pools.get(sizeClass(buffer.capacity())).offer(buffer)) {
+            discards.incrementAndGet();
+        }
+    }
+
+    public static long getAcquisitions() {
+        return acquisitions.get();
+    }
+
+    public static long getAllocations() {
+        return allocations.get();
+    }
+
+    public static long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    public static long getDiscards() {
+        return discards.get();
+    }
+}
@@ -0,0 +1,6 @@
+package db.storage;
+
+public enum Compression {
+    NONE,
+    DEFLATE
+}
@@ -0,0 +1,71 @@
+package db.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+final class Deflate {
+    private static final int LEVEL = Deflater.BEST_SPEED;
+    private static final int BUFFER_SIZE = 0x2000;
+    private static final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(() -> new Deflater(LEVEL));
+    private static final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+
+    private Deflate() {}
+
+    static byte[] compress(byte[] bytes) {
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 2);
+        byte[] buffer = new byte[Math.min(BUFFER_SIZE, bytes.length)];
+        while (!deflater.finished()) {
+            output.write(buffer, 0, deflater.deflate(buffer));
+            if (output.size() >= bytes.length) {
+                return null;
+            }
+        }
+        return output.toByteArray();
+    }
+
+    static byte[] decompress(byte[] bytes, int offset, int length, int originalLength) throws IOException {
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(bytes, offset, length);
+        byte[] original = new byte[originalLength];
+        try {
+            int inflated = 0;
+            while (inflated < originalLength && !inflater.finished()) {
+                int count = inflater.inflate(original, inflated, originalLength - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != originalLength) {
+                throw new IOException("Truncated compressed record");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        }
+        return original;
+    }
+
+    static OutputStream output(OutputStream output) throws IOException {
+        return new GZIPOutputStream(output, BUFFER_SIZE) {
+            {
+                def.setLevel(LEVEL);
+            }
+        };
+    }
+
+    static InputStream input(InputStream input) throws IOException {
+        return new GZIPInputStream(input, BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,74 @@
+package db.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+abstract class FileBuckets extends Buckets {
+    private static final String TMP = "temporary";
+
+    private final Path dataPath;
+    private final Path temporaryPath;
+    private final Set<Integer> unsynced;
+    final StorageMetrics metrics;
+
+    FileBuckets(Path dataPath, Path temporaryPath, StorageMetrics metrics) {
+        this.dataPath = dataPath;
+        this.temporaryPath = temporaryPath;
+        this.unsynced = ConcurrentHashMap.newKeySet();
+        this.metrics = metrics;
+    }
+
+    void touch(int bucket) {
+        unsynced.add(bucket);
+    }
+
+    Path nthBucket(int n) {
+        return dataPath.resolve(Integer.toString(n));
+    }
+
+    @Override
+    void rewrite(int bucket, Content content) throws IOException {
+        Path temporaryBucket = Files.createTempFile(temporaryPath, TMP, "");
+        try {
+            Path src = nthBucket(bucket);
+            write(temporaryBucket, content, Files.exists(src) ? Files.size(src) : 0);
+            Files.move(temporaryBucket, nthBucket(bucket), StandardCopyOption.REPLACE_EXISTING);
+            touch(bucket);
+        } finally {
+            Files.deleteIfExists(temporaryBucket);
+        }
+    }
+
+    @Override
+    void delete(int bucket) throws IOException {
+        Files.deleteIfExists(nthBucket(bucket));
+    }
+
+    @Override
+    void adopt(Buckets other, int buckets) throws IOException {
+        FileBuckets that = (FileBuckets) other;
+        swap(dataPath, that.dataPath);
+        unsynced.clear();
+    }
+
+    @Override
+    void flush() throws IOException {
+        for (Integer bucket : unsynced) {
+            unsynced.remove(bucket);
+            Path src = nthBucket(bucket);
+            if (Files.exists(src)) {
+                try (FileChannel channel = FileChannel.open(src, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+            }
+        }
+    }
+
+    abstract void write(Path dst, Content content, long sizeHint) throws IOException;
+}
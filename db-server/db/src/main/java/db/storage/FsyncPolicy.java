@@ -0,0 +1,7 @@
+package db.storage;
+
+public enum FsyncPolicy {
+    ALWAYS,
+    INTERVAL,
+    NEVER
+}
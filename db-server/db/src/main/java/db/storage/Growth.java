@@ -0,0 +1,6 @@
+package db.storage;
+
+public enum Growth {
+    DOUBLING,
+    LINEAR
+}
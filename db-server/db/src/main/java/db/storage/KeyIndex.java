@@ -0,0 +1,196 @@
+package db.storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+class KeyIndex {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EMPTY = -1;
+    private static final int REMOVED = -2;
+    private static final long[] NO_POSITIONS = new long[0];
+
+    interface Matcher {
+        boolean matches(long position) throws IOException;
+    }
+
+    private int[] hashes;
+    private int[] buckets;
+    private long[] positions;
+    private int size;
+    private final ReadWriteLock lock;
+
+    KeyIndex() {
+        this.lock = new ReentrantReadWriteLock();
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        buckets = new int[capacity];
+        positions = new long[capacity];
+        Arrays.fill(buckets, EMPTY);
+        size = 0;
+    }
+
+    private int start(int hash) {
+        return (hash * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(hashes.length) + 1);
+    }
+
+    private int next(int slot) {
+        return (slot + 1) & (hashes.length - 1);
+    }
+
+    boolean find(int hash, int bucket, Matcher matcher) throws IOException {
+        return locate(hash, bucket, matcher) != EMPTY;
+    }
+
+    private long locate(int hash, int bucket, Matcher matcher) throws IOException {
+        for (long position : candidates(hash, bucket)) {
+            if (matcher.matches(position)) {
+                return position;
+            }
+        }
+        return EMPTY;
+    }
+
+    private long[] candidates(int hash, int bucket) {
+        lock.readLock().lock();
+        try {
+            long[] found = NO_POSITIONS;
+            int count = 0;
+            for (int slot = start(hash); buckets[slot] != EMPTY; slot = next(slot)) {
+                if (hashes[slot] == hash && buckets[slot] == bucket) {
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, Math.max(1, count * 2));
+                    }
+                    found[count++] = positions[slot];
+                }
+            }
+            return count == found.length ? found : Arrays.copyOf(found, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void put(int hash, int bucket, long position, Matcher matcher) throws IOException {
+        long previous = locate(hash, bucket, matcher);
+        if (previous == EMPTY) {
+            add(hash, bucket, position);
+        } else {
+            move(hash, bucket, previous, bucket, position);
+        }
+    }
+
+    void add(int hash, int bucket, long position) {
+        lock.writeLock().lock();
+        try {
+            insert(hash, bucket, position);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insert(int hash, int bucket, long position) {
+        if ((size + 1) * 4L > hashes.length * 3L) {
+            int[] oldHashes = hashes;
+            int[] oldBuckets = buckets;
+            long[] oldPositions = positions;
+            allocate(oldHashes.length * 2);
+            for (int slot = 0; slot < oldHashes.length; slot++) {
+                if (oldBuckets[slot] >= 0) {
+                    insert(oldHashes[slot], oldBuckets[slot], oldPositions[slot]);
+                }
+            }
+        }
+        int slot = start(hash);
+        while (buckets[slot] != EMPTY) {
+            slot = next(slot);
+        }
+        hashes[slot] = hash;
+        buckets[slot] = bucket;
+        positions[slot] = position;
+        size++;
+    }
+
+    void move(int hash, int bucket, long position, int newBucket, long newPosition) {
+        lock.writeLock().lock();
+        try {
+            for (int slot = start(hash); buckets[slot] != EMPTY; slot = next(slot)) {
+                if (hashes[slot] == hash && buckets[slot] == bucket && positions[slot] == position) {
+                    buckets[slot] = newBucket;
+                    positions[slot] = newPosition;
+                    return;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int hash, int bucket, long position) {
+        lock.writeLock().lock();
+        try {
+            for (int slot = start(hash); buckets[slot] != EMPTY; slot = next(slot)) {
+                if (hashes[slot] == hash && buckets[slot] == bucket && positions[slot] == position) {
+                    buckets[slot] = REMOVED;
+                    return;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void write(DataOutput output) throws IOException {
+        lock.readLock().lock();
+        try {
+            int live = 0;
+            for (int bucket : buckets) {
+                if (bucket >= 0) {
+                    live++;
+                }
+            }
+            output.writeInt(hashes.length);
+            output.writeInt(live);
+            for (int slot = 0; slot < hashes.length; slot++) {
+                if (buckets[slot] >= 0) {
+                    output.writeInt(hashes[slot]);
+                    output.writeInt(buckets[slot]);
+                    output.writeLong(positions[slot]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void read(DataInput input) throws IOException {
+        lock.writeLock().lock();
+        try {
+            int capacity = input.readInt();
+            int live = input.readInt();
+            if (Integer.bitCount(capacity) != 1 || live < 0 || live * 4L > capacity * 3L) {
+                throw new IOException("Corrupted key index snapshot");
+            }
+            allocate(capacity);
+            for (int i = 0; i < live; i++) {
+                insert(input.readInt(), input.readInt(), input.readLong());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            allocate(INITIAL_CAPACITY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -4,12 +4,22 @@ import java.io.Serializable;
 import java.util.Objects;
 
 public class KeyValuePair<A extends Serializable, B extends Serializable> implements Serializable {
+    private static final long serialVersionUID = -394864253887267617L;
+
+    public static final long NEVER = 0;
+
     private final A key;
     private final B value;
+    private final long expiresAt;
 
     public KeyValuePair(A key, B value) {
+        this(key, value, NEVER);
+    }
+
+    public KeyValuePair(A key, B value, long expiresAt) {
         this.key = key;
         this.value = value;
+        this.expiresAt = expiresAt;
     }
 
     public A getKey() {
@@ -20,6 +30,14 @@ public class KeyValuePair<A extends Serializable, B extends Serializable> implem
         return value;
     }
 
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt != NEVER && expiresAt <= now;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public boolean equals(Object o) {
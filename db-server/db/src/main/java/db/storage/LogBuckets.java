@@ -0,0 +1,95 @@
+package db.storage;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class LogBuckets extends FileBuckets implements RandomAccessBuckets {
+    private final Records records;
+
+    LogBuckets(Path dataPath, Path temporaryPath, Records records, StorageMetrics metrics) {
+        super(dataPath, temporaryPath, metrics);
+        this.records = records;
+    }
+
+    @Override
+    void forEach(int bucket, Visitor visitor) throws IOException {
+        Path src = nthBucket(bucket);
+        if (Files.notExists(src)) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new PooledInputStream(src, metrics))) {
+            records.forEach(input, visitor);
+        }
+    }
+
+    @Override
+    long append(int bucket, KeyValuePair<?, ?> pair) throws IOException {
+        byte[] record = records.encode(pair);
+        try (PooledOutputStream stream = new PooledOutputStream(
+            nthBucket(bucket),
+            Integer.BYTES + record.length,
+            metrics,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND
+        )) {
+            long position = stream.position();
+            DataOutputStream output = new DataOutputStream(stream);
+            output.writeInt(record.length);
+            output.write(record);
+            touch(bucket);
+            return position;
+        }
+    }
+
+    @Override
+    void append(int bucket, Content content) throws IOException {
+        try (PooledOutputStream stream = new PooledOutputStream(
+            nthBucket(bucket),
+            Files.exists(nthBucket(bucket)) ? Files.size(nthBucket(bucket)) : 0,
+            metrics,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND
+        )) {
+            DataOutputStream output = new DataOutputStream(stream);
+            content.writeTo(pair -> {
+                byte[] record = records.encode(pair);
+                long position = stream.position();
+                output.writeInt(record.length);
+                output.write(record);
+                return position;
+            });
+        } finally {
+            touch(bucket);
+        }
+    }
+
+    @Override
+    public KeyValuePair<Serializable, Serializable> read(int bucket, long position) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+            new PooledInputStream(FileChannel.open(nthBucket(bucket), StandardOpenOption.READ), position, 0, metrics)
+        )) {
+            byte[] record = new byte[input.readInt()];
+            input.readFully(record);
+            return records.decode(record);
+        }
+    }
+
+    @Override
+    void write(Path dst, Content content, long sizeHint) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new PooledOutputStream(dst, sizeHint, metrics))) {
+            long[] position = {0};
+            content.writeTo(pair -> {
+                byte[] record = records.encode(pair);
+                output.writeInt(record.length);
+                output.write(record);
+                position[0] += Integer.BYTES + record.length;
+                return position[0] - Integer.BYTES - record.length;
+            });
+        }
+    }
+}
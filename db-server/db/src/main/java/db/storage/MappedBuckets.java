@@ -0,0 +1,344 @@
+package db.storage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class MappedBuckets extends Buckets implements RandomAccessBuckets {
+    private static final String PAGES = "pages";
+    private static final String DIRECTORY = "directory";
+
+    private static final int PAGE_SIZE = 0x1000;
+    private static final int SEGMENT_PAGES = 0x1000;
+    private static final int USED = 0;
+    private static final int NEXT = Integer.BYTES;
+    private static final int PAGE_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int PAYLOAD_SIZE = PAGE_SIZE - PAGE_HEADER_SIZE;
+
+    private static final int PAGE_COUNT = 0;
+    private static final int FREE_PAGE = Integer.BYTES;
+
+    private static final int HEAD = 0;
+    private static final int TAIL = Integer.BYTES;
+    private static final int LENGTH = 2 * Integer.BYTES;
+    private static final int ENTRY_SIZE = 2 * Integer.BYTES + Long.BYTES;
+
+    private static final int NONE = 0;
+
+    private final Path dataPath;
+    private final Records records;
+    private final StorageMetrics metrics;
+    private final List<MappedByteBuffer> segments;
+    private volatile MappedByteBuffer directory;
+
+    MappedBuckets(Path dataPath, Records records, StorageMetrics metrics) throws IOException {
+        this.dataPath = dataPath;
+        this.records = records;
+        this.metrics = metrics;
+        this.segments = new CopyOnWriteArrayList<>();
+        map();
+    }
+
+    private static MappedByteBuffer map(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        )) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        }
+    }
+
+    private Path nthSegment(int n) {
+        return dataPath.resolve(PAGES + "." + n);
+    }
+
+    private void map() throws IOException {
+        segments.clear();
+        segments.add(map(nthSegment(0), (long) SEGMENT_PAGES * PAGE_SIZE));
+        if (header().getInt(PAGE_COUNT) == NONE) {
+            header().putInt(PAGE_COUNT, 1);
+            header().putInt(FREE_PAGE, NONE);
+        }
+        for (int i = 1; Files.exists(nthSegment(i)); i++) {
+            segments.add(map(nthSegment(i), (long) SEGMENT_PAGES * PAGE_SIZE));
+        }
+        directory = map(dataPath.resolve(DIRECTORY), PAGE_SIZE);
+    }
+
+    private MappedByteBuffer header() {
+        return segments.get(0);
+    }
+
+    private MappedByteBuffer segment(int page) {
+        return segments.get(page / SEGMENT_PAGES);
+    }
+
+    private static int offset(int page) {
+        return (page % SEGMENT_PAGES) * PAGE_SIZE;
+    }
+
+    private int next(int page) {
+        return segment(page).getInt(offset(page) + NEXT);
+    }
+
+    private synchronized int allocate() throws IOException {
+        int page = header().getInt(FREE_PAGE);
+        if (page != NONE) {
+            header().putInt(FREE_PAGE, next(page));
+        } else {
+            page = header().getInt(PAGE_COUNT);
+            if (page / SEGMENT_PAGES == segments.size()) {
+                segments.add(map(nthSegment(segments.size()), (long) SEGMENT_PAGES * PAGE_SIZE));
+            }
+            header().putInt(PAGE_COUNT, page + 1);
+        }
+        segment(page).putInt(offset(page) + USED, 0);
+        segment(page).putInt(offset(page) + NEXT, NONE);
+        return page;
+    }
+
+    private synchronized void free(int head) {
+        for (int page = head; page != NONE; ) {
+            int next = next(page);
+            segment(page).putInt(offset(page) + NEXT, header().getInt(FREE_PAGE));
+            header().putInt(FREE_PAGE, page);
+            page = next;
+        }
+    }
+
+    private synchronized int entry(int bucket) throws IOException {
+        long entry = (long) bucket * ENTRY_SIZE;
+        if (entry + ENTRY_SIZE > directory.capacity()) {
+            long size = directory.capacity();
+            while (entry + ENTRY_SIZE > size) {
+                size *= 2;
+            }
+            directory = map(dataPath.resolve(DIRECTORY), size);
+        }
+        return (int) entry;
+    }
+
+    private Chain chain(int bucket) {
+        long entry = (long) bucket * ENTRY_SIZE;
+        if (entry + ENTRY_SIZE > directory.capacity()) {
+            return new Chain(NONE, NONE, 0);
+        }
+        int offset = (int) entry;
+        return new Chain(directory.getInt(offset + HEAD), directory.getInt(offset + TAIL), directory.getLong(offset + LENGTH));
+    }
+
+    private void store(int bucket, Chain chain) throws IOException {
+        int entry = entry(bucket);
+        directory.putInt(entry + HEAD, chain.head);
+        directory.putInt(entry + TAIL, chain.tail);
+        directory.putLong(entry + LENGTH, chain.length);
+    }
+
+    private class Chain {
+        private int head;
+        private int tail;
+        private long length;
+
+        private Chain(int head, int tail, long length) {
+            this.head = head;
+            this.tail = tail;
+            this.length = length;
+        }
+
+        private long write(byte[] record) throws IOException {
+            long position = length;
+            for (int shift = Integer.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+                reserve();
+                segment(tail).put(offset(tail) + PAGE_HEADER_SIZE + used(), (byte) (record.length >>> shift));
+                advance(1);
+            }
+            int written = 0;
+            while (written < record.length) {
+                reserve();
+                int count = Math.min(PAYLOAD_SIZE - used(), record.length - written);
+                ByteBuffer page = segment(tail).duplicate();
+                page.position(offset(tail) + PAGE_HEADER_SIZE + used());
+                page.put(record, written, count);
+                advance(count);
+                written += count;
+            }
+            metrics.recordWrite(length - position);
+            return position;
+        }
+
+        private int used() {
+            return (int) (length % PAYLOAD_SIZE);
+        }
+
+        private void reserve() throws IOException {
+            if (head == NONE) {
+                head = tail = allocate();
+            } else if (used() == 0) {
+                int page = allocate();
+                segment(tail).putInt(offset(tail) + NEXT, page);
+                tail = page;
+            }
+        }
+
+        private void advance(int count) {
+            segment(tail).putInt(offset(tail) + USED, used() + count);
+            length += count;
+        }
+
+        private ChainInput input(long position) {
+            int first = head;
+            for (long skipped = position / PAYLOAD_SIZE; skipped > 0; skipped--) {
+                first = next(first);
+            }
+            return new ChainInput(first, (int) (position % PAYLOAD_SIZE), length - position);
+        }
+    }
+
+    private class ChainInput extends InputStream {
+        private int page;
+        private int offset;
+        private long remaining;
+        private long consumed;
+
+        private ChainInput(int page, int offset, long remaining) {
+            this.page = page;
+            this.offset = offset;
+            this.remaining = remaining;
+            this.consumed = 0;
+        }
+
+        private void turn() {
+            if (offset == PAYLOAD_SIZE) {
+                page = next(page);
+                offset = 0;
+            }
+        }
+
+        @Override
+        public int read() {
+            if (remaining == 0) {
+                return -1;
+            }
+            turn();
+            int value = segment(page).get(offset(page) + PAGE_HEADER_SIZE + offset) & 0xFF;
+            offset++;
+            remaining--;
+            consumed++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int from, int count) {
+            if (remaining == 0) {
+                return -1;
+            }
+            turn();
+            int read = (int) Math.min(Math.min(count, PAYLOAD_SIZE - offset), remaining);
+            ByteBuffer buffer = segment(page).duplicate();
+            buffer.position(offset(page) + PAGE_HEADER_SIZE + offset);
+            buffer.get(bytes, from, read);
+            offset += read;
+            remaining -= read;
+            consumed += read;
+            return read;
+        }
+
+        @Override
+        public void close() {
+            metrics.recordRead(consumed);
+        }
+    }
+
+    @Override
+    void forEach(int bucket, Visitor visitor) throws IOException {
+        Chain chain = chain(bucket);
+        if (chain.head != NONE) {
+            try (DataInputStream input = new DataInputStream(chain.input(0))) {
+                records.forEach(input, visitor);
+            }
+        }
+    }
+
+    @Override
+    long append(int bucket, KeyValuePair<?, ?> pair) throws IOException {
+        Chain chain = chain(bucket);
+        long position = chain.write(records.encode(pair));
+        store(bucket, chain);
+        return position;
+    }
+
+    @Override
+    void append(int bucket, Content content) throws IOException {
+        Chain chain = chain(bucket);
+        try {
+            content.writeTo(pair -> chain.write(records.encode(pair)));
+        } finally {
+            store(bucket, chain);
+        }
+    }
+
+    @Override
+    public KeyValuePair<Serializable, Serializable> read(int bucket, long position) throws IOException {
+        Chain chain = chain(bucket);
+        if (position >= chain.length) {
+            throw new EOFException();
+        }
+        try (DataInputStream input = new DataInputStream(chain.input(position))) {
+            byte[] record = new byte[input.readInt()];
+            input.readFully(record);
+            return records.decode(record);
+        }
+    }
+
+    @Override
+    void rewrite(int bucket, Content content) throws IOException {
+        Chain chain = new Chain(NONE, NONE, 0);
+        try {
+            content.writeTo(pair -> chain.write(records.encode(pair)));
+        } catch (IOException | RuntimeException e) {
+            free(chain.head);
+            throw e;
+        }
+        replace(bucket, chain);
+    }
+
+    @Override
+    void delete(int bucket) throws IOException {
+        replace(bucket, new Chain(NONE, NONE, 0));
+    }
+
+    private void replace(int bucket, Chain chain) throws IOException {
+        int previous = chain(bucket).head;
+        segments.forEach(MappedByteBuffer::force);
+        store(bucket, chain);
+        directory.force();
+        free(previous);
+    }
+
+    @Override
+    void adopt(Buckets other, int buckets) throws IOException {
+        MappedBuckets that = (MappedBuckets) other;
+        that.close();
+        swap(dataPath, that.dataPath);
+        map();
+    }
+
+    @Override
+    void flush() {
+        segments.forEach(MappedByteBuffer::force);
+        directory.force();
+    }
+
+    @Override
+    void close() {
+        flush();
+    }
+}
@@ -0,0 +1,116 @@
+package db.storage;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class ObjectStreamBuckets extends FileBuckets {
+    private static final long UNKNOWN_POSITION = -1;
+    private static final int APPEND_SIZE_HINT = 0x1000;
+
+    private static class AppendingObjectOutputStream extends ObjectOutputStream {
+        private AppendingObjectOutputStream(OutputStream output) throws IOException {
+            super(output);
+        }
+
+        @Override
+        protected void writeStreamHeader() throws IOException {
+            reset();
+        }
+    }
+
+    private final Compression compression;
+
+    ObjectStreamBuckets(Path dataPath, Path temporaryPath, Compression compression, StorageMetrics metrics) {
+        super(dataPath, temporaryPath, metrics);
+        this.compression = compression;
+    }
+
+    private InputStream input(Path src) throws IOException {
+        InputStream input = new PooledInputStream(src, metrics);
+        if (compression == Compression.NONE) {
+            return input;
+        }
+        try {
+            return Deflate.input(input);
+        } catch (IOException | RuntimeException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    private OutputStream output(Path dst, long sizeHint, OpenOption... options) throws IOException {
+        OutputStream output = new PooledOutputStream(dst, sizeHint, metrics, options);
+        if (compression == Compression.NONE) {
+            return output;
+        }
+        try {
+            return Deflate.output(output);
+        } catch (IOException | RuntimeException e) {
+            output.close();
+            throw e;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void forEach(int bucket, Visitor visitor) throws IOException {
+        Path src = nthBucket(bucket);
+        if (Files.notExists(src)) {
+            return;
+        }
+        try (InputStream stream = input(src); ObjectInput input = new ObjectInputStream(stream)) {
+            long position = 0;
+            while (visitor.visit((KeyValuePair<Serializable, Serializable>) input.readObject(), position)) {
+                position++;
+            }
+        } catch (EOFException | ClassNotFoundException ignored) { }
+    }
+
+    @Override
+    long append(int bucket, KeyValuePair<?, ?> pair) throws IOException {
+        append(bucket, writer -> writer.write(pair));
+        return UNKNOWN_POSITION;
+    }
+
+    @Override
+    void append(int bucket, Content content) throws IOException {
+        Path dst = nthBucket(bucket);
+        boolean empty = Files.notExists(dst) || Files.size(dst) == 0;
+        OutputStream stream = output(
+            dst,
+            APPEND_SIZE_HINT,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND
+        );
+        ObjectOutput output;
+        try {
+            output = empty ? new ObjectOutputStream(stream) : new AppendingObjectOutputStream(stream);
+        } catch (IOException | RuntimeException e) {
+            stream.close();
+            throw e;
+        }
+        try (output) {
+            content.writeTo(pair -> {
+                output.writeObject(pair);
+                return UNKNOWN_POSITION;
+            });
+        } finally {
+            touch(bucket);
+        }
+    }
+
+    @Override
+    void write(Path dst, Content content, long sizeHint) throws IOException {
+        try (ObjectOutput output = new ObjectOutputStream(output(dst, sizeHint))) {
+            long[] position = {0};
+            content.writeTo(pair -> {
+                output.writeObject(pair);
+                return position[0]++;
+            });
+        }
+    }
+}
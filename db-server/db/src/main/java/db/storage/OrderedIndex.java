@@ -0,0 +1,157 @@
+package db.storage;
+
+import db.storage.codec.Codec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+class OrderedIndex<K extends Serializable> {
+    private static final int MAGIC = 0x4F524458;
+    private static final int VERSION = 1;
+    private static final String TMP = ".tmp";
+    private static final int OVERFLOWED = -1;
+
+    private final Path path;
+    private final Codec<K> codec;
+    private final int limit;
+    private final ConcurrentSkipListSet<K> keys;
+    private final AtomicInteger count;
+    private final AtomicBoolean saved;
+    private volatile boolean overflowed;
+
+    OrderedIndex(Path path, Codec<K> codec, int limit) {
+        this.path = path;
+        this.codec = codec;
+        this.limit = limit;
+        this.keys = new ConcurrentSkipListSet<>();
+        this.count = new AtomicInteger();
+        this.saved = new AtomicBoolean(false);
+        this.overflowed = false;
+    }
+
+    void add(K key) throws IOException {
+        if (overflowed || !keys.add(key)) {
+            return;
+        }
+        touch();
+        if (count.incrementAndGet() > limit) {
+            overflowed = true;
+            keys.clear();
+            count.set(0);
+        }
+    }
+
+    void remove(K key) throws IOException {
+        if (!overflowed && keys.remove(key)) {
+            count.decrementAndGet();
+            touch();
+        }
+    }
+
+    void clear() throws IOException {
+        touch();
+        overflowed = false;
+        keys.clear();
+        count.set(0);
+    }
+
+    boolean isOverflowed() {
+        return overflowed;
+    }
+
+    NavigableSet<K> range(K from, K to) {
+        if (from == null && to == null) {
+            return keys;
+        } else if (from == null) {
+            return keys.headSet(to, false);
+        } else if (to == null) {
+            return keys.tailSet(from, true);
+        } else if (compare(from, to) >= 0) {
+            return new ConcurrentSkipListSet<>();
+        }
+        return keys.subSet(from, true, to, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(K first, K second) {
+        return ((Comparable<K>) first).compareTo(second);
+    }
+
+    private void touch() throws IOException {
+        if (saved.compareAndSet(true, false)) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    boolean load() throws IOException {
+        if (Files.notExists(path)) {
+            return false;
+        }
+        CRC32 checksum = new CRC32();
+        try (DataInputStream input = new DataInputStream(
+            new CheckedInputStream(new PooledInputStream(path), checksum)
+        )) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return false;
+            }
+            int stored = input.readInt();
+            clear();
+            for (int i = 0; i < stored; i++) {
+                keys.add(codec.read(input));
+            }
+            long expected = checksum.getValue();
+            if (input.readLong() != expected) {
+                clear();
+                return false;
+            }
+            overflowed = stored == OVERFLOWED;
+            count.set(keys.size());
+            saved.set(true);
+            return true;
+        } catch (IOException e) {
+            clear();
+            return false;
+        }
+    }
+
+    void save() throws IOException {
+        if (saved.get()) {
+            return;
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + TMP);
+        CRC32 checksum = new CRC32();
+        try (
+            PooledOutputStream file = new PooledOutputStream(temporary, 0);
+            DataOutputStream output = new DataOutputStream(new CheckedOutputStream(file, checksum))
+        ) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            if (overflowed) {
+                output.writeInt(OVERFLOWED);
+            } else {
+                output.writeInt(keys.size());
+                for (K key : keys) {
+                    codec.write(key, output);
+                }
+            }
+            output.flush();
+            output.writeLong(checksum.getValue());
+            output.flush();
+            file.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        saved.set(true);
+    }
+}
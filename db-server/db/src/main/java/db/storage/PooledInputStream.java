@@ -0,0 +1,88 @@
+package db.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class PooledInputStream extends InputStream {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final StorageMetrics metrics;
+    private long transferred;
+    private boolean closed;
+
+    PooledInputStream(Path src) throws IOException {
+        this(src, StorageMetrics.NONE);
+    }
+
+    PooledInputStream(Path src, StorageMetrics metrics) throws IOException {
+        this(FileChannel.open(src, StandardOpenOption.READ), 0, -1, metrics);
+    }
+
+    PooledInputStream(FileChannel channel, long position, long sizeHint, StorageMetrics metrics) throws IOException {
+        this.channel = channel.position(position);
+        this.buffer = BufferPool.acquire(sizeHint < 0 ? channel.size() - position : sizeHint).flip();
+        this.metrics = metrics;
+        this.transferred = 0;
+        this.closed = false;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read = channel.read(buffer);
+        buffer.flip();
+        if (read > 0) {
+            transferred += read;
+        }
+        return read > 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        if (length == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return (int) Math.min(Integer.MAX_VALUE, buffer.remaining() + channel.size() - channel.position());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        BufferPool.release(buffer);
+        channel.close();
+        metrics.recordRead(transferred);
+    }
+}
@@ -0,0 +1,104 @@
+package db.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class PooledOutputStream extends OutputStream {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final StorageMetrics metrics;
+    private long transferred;
+    private boolean closed;
+
+    PooledOutputStream(Path dst, long sizeHint, OpenOption... options) throws IOException {
+        this(dst, sizeHint, StorageMetrics.NONE, options);
+    }
+
+    PooledOutputStream(Path dst, long sizeHint, StorageMetrics metrics, OpenOption... options) throws IOException {
+        this.channel = FileChannel.open(dst, options.length == 0 ? new OpenOption[]{
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING
+        } : options);
+        this.buffer = BufferPool.acquire(sizeHint);
+        this.metrics = metrics;
+        this.transferred = 0;
+        this.closed = false;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    long position() throws IOException {
+        ensureOpen();
+        return channel.position() + buffer.position();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        transferred += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    void force() throws IOException {
+        ensureOpen();
+        drain();
+        channel.force(true);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!closed) {
+            drain();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            drain();
+        } finally {
+            BufferPool.release(buffer);
+            channel.close();
+            metrics.recordWrite(transferred);
+        }
+    }
+}
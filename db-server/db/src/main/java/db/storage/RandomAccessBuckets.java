@@ -0,0 +1,8 @@
+package db.storage;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+interface RandomAccessBuckets {
+    KeyValuePair<Serializable, Serializable> read(int bucket, long position) throws IOException;
+}
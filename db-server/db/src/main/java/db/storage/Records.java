@@ -0,0 +1,105 @@
+package db.storage;
+
+import db.storage.codec.Codec;
+
+import java.io.*;
+import java.util.Arrays;
+
+class Records {
+    private static final byte STORED = 0;
+    private static final byte DEFLATED = 1;
+    private static final int MIN_DEFLATED_SIZE = 64;
+
+    private final Codec<Serializable> keyCodec;
+    private final Codec<Serializable> valueCodec;
+    private final Compression compression;
+
+    Records(Codec<Serializable> keyCodec, Codec<Serializable> valueCodec, Compression compression) {
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.compression = compression;
+    }
+
+    Compression getCompression() {
+        return compression;
+    }
+
+    byte[] encode(KeyValuePair<?, ?> pair) throws IOException {
+        byte[] record = serialize(pair);
+        if (compression == Compression.NONE) {
+            return record;
+        }
+        byte[] deflated = record.length < MIN_DEFLATED_SIZE ? null : Deflate.compress(record);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        if (deflated == null) {
+            output.writeByte(STORED);
+            output.write(record);
+        } else {
+            output.writeByte(DEFLATED);
+            output.writeInt(record.length);
+            output.write(deflated);
+        }
+        return bytes.toByteArray();
+    }
+
+    KeyValuePair<Serializable, Serializable> decode(byte[] record) throws IOException {
+        if (compression == Compression.NONE) {
+            return deserialize(record);
+        }
+        if (record[0] == STORED) {
+            return deserialize(Arrays.copyOfRange(record, 1, record.length));
+        }
+        int length = new DataInputStream(new ByteArrayInputStream(record, 1, Integer.BYTES)).readInt();
+        return deserialize(Deflate.decompress(record, 1 + Integer.BYTES, record.length - 1 - Integer.BYTES, length));
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] serialize(KeyValuePair<?, ?> pair) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (keyCodec == null || valueCodec == null) {
+            try (ObjectOutput output = new ObjectOutputStream(bytes)) {
+                output.writeObject(pair);
+            }
+        } else {
+            DataOutputStream output = new DataOutputStream(bytes);
+            KeyValuePair<Serializable, Serializable> record = (KeyValuePair<Serializable, Serializable>) pair;
+            keyCodec.write(record.getKey(), output);
+            valueCodec.write(record.getValue(), output);
+            if (record.getExpiresAt() != KeyValuePair.NEVER) {
+                output.writeLong(record.getExpiresAt());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private KeyValuePair<Serializable, Serializable> deserialize(byte[] record) throws IOException {
+        if (keyCodec == null || valueCodec == null) {
+            try (ObjectInput input = new ObjectInputStream(new ByteArrayInputStream(record))) {
+                return (KeyValuePair<Serializable, Serializable>) input.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+        ByteArrayInputStream bytes = new ByteArrayInputStream(record);
+        DataInput input = new DataInputStream(bytes);
+        Serializable key = keyCodec.read(input);
+        Serializable value = valueCodec.read(input);
+        return new KeyValuePair<>(key, value, bytes.available() >= Long.BYTES ? input.readLong() : KeyValuePair.NEVER);
+    }
+
+    void forEach(DataInput input, Buckets.Visitor visitor) throws IOException {
+        long position = 0;
+        try {
+            while (true) {
+                byte[] record = new byte[input.readInt()];
+                input.readFully(record);
+                if (!visitor.visit(decode(record), position)) {
+                    return;
+                }
+                position += Integer.BYTES + record.length;
+            }
+        } catch (EOFException ignored) { }
+    }
+}
@@ -0,0 +1,39 @@
+package db.storage;
+
+public final class ScanCursor {
+    private static final String SEPARATOR = ":";
+
+    public static final ScanCursor START = new ScanCursor(0, 0);
+
+    private final int bucket;
+    private final long offset;
+
+    public ScanCursor(int bucket, long offset) {
+        if (bucket < 0 || offset < 0) {
+            throw new IllegalArgumentException("Scan cursor must not be negative");
+        }
+        this.bucket = bucket;
+        this.offset = offset;
+    }
+
+    public static ScanCursor parse(String cursor) {
+        String[] parts = cursor.split(SEPARATOR, -1);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid scan cursor: " + cursor);
+        }
+        return new ScanCursor(Integer.parseInt(parts[0]), Long.parseLong(parts[1]));
+    }
+
+    public int getBucket() {
+        return bucket;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public String toString() {
+        return bucket + SEPARATOR + offset;
+    }
+}
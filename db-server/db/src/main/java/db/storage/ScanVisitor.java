@@ -0,0 +1,8 @@
+package db.storage;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+public interface ScanVisitor<K extends Serializable> {
+    void visit(K key, Serializable value, ScanCursor next) throws IOException;
+}
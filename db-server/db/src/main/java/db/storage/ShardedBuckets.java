@@ -0,0 +1,173 @@
+package db.storage;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class ShardedBuckets extends Buckets {
+    private interface ShardTask {
+        void apply(int shard) throws IOException;
+    }
+
+    private static class RandomAccess extends ShardedBuckets implements RandomAccessBuckets {
+        private RandomAccess(List<Buckets> shards) {
+            super(shards);
+        }
+
+        @Override
+        public KeyValuePair<Serializable, Serializable> read(int bucket, long position) throws IOException {
+            return ((RandomAccessBuckets) shard(bucket)).read(local(bucket), position);
+        }
+    }
+
+    private final List<Buckets> shards;
+    private final List<ExecutorService> writers;
+
+    static ShardedBuckets of(List<Buckets> shards) {
+        for (Buckets shard : shards) {
+            if (!(shard instanceof RandomAccessBuckets)) {
+                return new ShardedBuckets(shards);
+            }
+        }
+        return new RandomAccess(shards);
+    }
+
+    private ShardedBuckets(List<Buckets> shards) {
+        this.shards = shards;
+        this.writers = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            String name = "shard-writer-" + i;
+            writers.add(Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+    }
+
+    Buckets shard(int bucket) {
+        return shards.get(bucket % shards.size());
+    }
+
+    int local(int bucket) {
+        return bucket / shards.size();
+    }
+
+    private int localCount(int shard, int buckets) {
+        return Math.max(0, (buckets - shard + shards.size() - 1) / shards.size());
+    }
+
+    private void onWriters(List<Integer> targets, ShardTask task) throws IOException {
+        List<Future<?>> futures = new ArrayList<>(targets.size());
+        for (int shard : targets) {
+            futures.add(writers.get(shard).submit(() -> {
+                try {
+                    task.apply(shard);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        IOException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new InterruptedIOException("Interrupted while waiting for shard writers");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof UncheckedIOException) {
+                    failure = ((UncheckedIOException) cause).getCause();
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else {
+                    throw new IllegalStateException(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    <T> void forEachGroup(Map<Integer, T> groups, BucketTask<T> task) throws IOException {
+        Map<Integer, Map<Integer, T>> byShard = new LinkedHashMap<>();
+        groups.forEach((bucket, value) ->
+            byShard.computeIfAbsent(bucket % shards.size(), shard -> new LinkedHashMap<>()).put(bucket, value)
+        );
+        if (byShard.size() == 1) {
+            super.forEachGroup(groups, task);
+            return;
+        }
+        onWriters(new ArrayList<>(byShard.keySet()), shard -> super.forEachGroup(byShard.get(shard), task));
+    }
+
+    @Override
+    void forEach(int bucket, Visitor visitor) throws IOException {
+        shard(bucket).forEach(local(bucket), visitor);
+    }
+
+    @Override
+    long append(int bucket, KeyValuePair<?, ?> pair) throws IOException {
+        return shard(bucket).append(local(bucket), pair);
+    }
+
+    @Override
+    void append(int bucket, Content content) throws IOException {
+        shard(bucket).append(local(bucket), content);
+    }
+
+    @Override
+    void rewrite(int bucket, Content content) throws IOException {
+        shard(bucket).rewrite(local(bucket), content);
+    }
+
+    @Override
+    void delete(int bucket) throws IOException {
+        shard(bucket).delete(local(bucket));
+    }
+
+    @Override
+    void adopt(Buckets other, int buckets) throws IOException {
+        ShardedBuckets that = (ShardedBuckets) other;
+        that.shutdown();
+        for (int i = 0; i < shards.size(); i++) {
+            shards.get(i).adopt(that.shards.get(i), localCount(i, buckets));
+        }
+    }
+
+    @Override
+    void flush() throws IOException {
+        List<Integer> all = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            all.add(i);
+        }
+        onWriters(all, shard -> shards.get(shard).flush());
+    }
+
+    @Override
+    void close() throws IOException {
+        try {
+            for (Buckets shard : shards) {
+                shard.close();
+            }
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void shutdown() {
+        writers.forEach(ExecutorService::shutdown);
+    }
+}
@@ -0,0 +1,95 @@
+package db.storage;
+
+import db.storage.parameters.StorageParameters;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+class Snapshot {
+    private static final int MAGIC = 0x534E4150;
+    private static final int VERSION = 1;
+    private static final String TMP = ".tmp";
+
+    private final Path path;
+    private final AtomicBoolean saved;
+
+    Snapshot(Path path) {
+        this.path = path;
+        this.saved = new AtomicBoolean(false);
+    }
+
+    void touch() throws IOException {
+        if (saved.compareAndSet(true, false)) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    boolean load(StorageParameters<?> parameters, KeyIndex index, AtomicInteger size) throws IOException {
+        if (Files.notExists(path)) {
+            return false;
+        }
+        CRC32 checksum = new CRC32();
+        try (DataInputStream input = new DataInputStream(
+            new CheckedInputStream(new PooledInputStream(path), checksum)
+        )) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return false;
+            }
+            if (input.readInt() != parameters.getCapacity()
+                || input.readInt() != parameters.getSplitPointer()
+                || input.readBoolean() != (index != null)) {
+                return false;
+            }
+            int snapshotSize = input.readInt();
+            if (index != null) {
+                index.read(input);
+            }
+            long expected = checksum.getValue();
+            if (input.readLong() != expected) {
+                return false;
+            }
+            size.set(snapshotSize);
+            saved.set(true);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    void save(StorageParameters<?> parameters, int size, KeyIndex index) throws IOException {
+        if (saved.get()) {
+            return;
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + TMP);
+        CRC32 checksum = new CRC32();
+        try (
+            PooledOutputStream file = new PooledOutputStream(temporary, 0);
+            DataOutputStream output = new DataOutputStream(new CheckedOutputStream(file, checksum))
+        ) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(parameters.getCapacity());
+            output.writeInt(parameters.getSplitPointer());
+            output.writeBoolean(index != null);
+            output.writeInt(size);
+            if (index != null) {
+                index.write(output);
+            }
+            output.flush();
+            output.writeLong(checksum.getValue());
+            output.flush();
+            file.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        saved.set(true);
+    }
+}
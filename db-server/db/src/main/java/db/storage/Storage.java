@@ -1,5 +1,6 @@
 package db.storage;
 
+import db.storage.cache.ValueCache;
 import db.storage.exceptions.InvalidKeyTypeException;
 import db.storage.parameters.StorageParameters;
 
@@ -8,14 +9,33 @@ import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class Storage<A extends Serializable> implements AutoCloseable {
-    private static final int BUFFER_SIZE = 0x800000;
     private static final String DATA = "data";
     private static final String PARAMETERS = "parameters";
+    private static final String GROWN = "parameters.grown";
+    private static final String TMP = ".tmp";
     private static final String COPY = "copy";
-    private static final String TMP = "temporary";
+    private static final String WAL = "wal";
+    private static final String BLOOM = "bloom";
+    private static final String SNAPSHOT = "snapshot";
+    private static final String ORDERED = "ordered";
+    private static final int CHECKPOINT_THRESHOLD = 0x4000;
+    private static final int CHECKPOINT_LIMIT = 4 * CHECKPOINT_THRESHOLD;
+    private static final int REHASH_BATCH = 16;
+    private static final int REHASH_PARALLELISM = Runtime.getRuntime().availableProcessors();
 
     @SuppressWarnings("unchecked")
     private static <T> T cast(Object object) {
@@ -24,22 +44,20 @@ public class Storage<A extends Serializable> implements AutoCloseable {
 
     private static class Iteration<T> {
         private Object object;
+        private long position;
         private boolean resume;
         private T value;
 
         private Iteration(T value) {
             this.object = null;
+            this.position = 0;
             this.resume = true;
             this.value = value;
         }
     }
 
     private interface IterationConsumer<T> {
-        void apply(Iteration<T> iteration) throws IOException, ClassNotFoundException;
-    }
-
-    private interface IO {
-        void apply(Path path, int i) throws IOException;
+        void apply(Iteration<T> iteration) throws IOException;
     }
 
     private interface Output {
@@ -50,16 +68,75 @@ public class Storage<A extends Serializable> implements AutoCloseable {
         Object get(ObjectInput input) throws IOException, ClassNotFoundException;
     }
 
+    private static final ScheduledExecutorService FLUSHER = newFlusher();
+    private static final System.Logger LOGGER = System.getLogger(Storage.class.getName());
+
+    private static ScheduledExecutorService newFlusher() {
+        AtomicInteger threads = new AtomicInteger();
+        ScheduledThreadPoolExecutor flusher = new ScheduledThreadPoolExecutor(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+            runnable -> {
+                Thread thread = new Thread(runnable, "storage-flusher-" + threads.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        flusher.setRemoveOnCancelPolicy(true);
+        return flusher;
+    }
+
+    private static final ForkJoinPool.ForkJoinWorkerThreadFactory REHASH_THREADS = pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("storage-rehash-" + thread.getPoolIndex());
+        return thread;
+    };
+
+    private class Rehash extends RecursiveAction {
+        private static final long serialVersionUID = -6243510498112457981L;
+
+        private final Storage<A> target;
+        private final int from;
+        private final int to;
+        private final long now;
+
+        private Rehash(Storage<A> target, int from, int to, long now) {
+            this.target = target;
+            this.from = from;
+            this.to = to;
+            this.now = now;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > REHASH_BATCH) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Rehash(target, from, middle, now), new Rehash(target, middle, to, now));
+                return;
+            }
+            try {
+                for (int i = from; i < to; i++) {
+                    rehash(i, target, now);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
     private static void write(Output output, Path dst, OpenOption... options) throws IOException {
-        try (ObjectOutput objectOutput =
-             new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(dst, options), BUFFER_SIZE))) {
+        try (
+            PooledOutputStream file = new PooledOutputStream(dst, 0, options);
+            ObjectOutputStream objectOutput = new ObjectOutputStream(file)
+        ) {
             output.apply(objectOutput);
+            objectOutput.flush();
+            file.force();
         }
     }
 
-    private static Object read(Input input, Path src, OpenOption... options) throws IOException, ClassNotFoundException {
+    private static Object read(Input input, Path src) throws IOException, ClassNotFoundException {
         try (ObjectInput objectInput =
-                     new ObjectInputStream(new BufferedInputStream(Files.newInputStream(src, options), BUFFER_SIZE))) {
+                     new ObjectInputStream(new PooledInputStream(src))) {
             return input.get(objectInput);
         }
     }
@@ -71,22 +148,38 @@ public class Storage<A extends Serializable> implements AutoCloseable {
     private static <K extends Serializable> void writeParameters(
         StorageParameters<K> parameters,
         Path dst
-    ) throws IOException, InvalidKeyTypeException {
-        write(output -> output.writeObject(parameters), dst);
+    ) throws IOException {
+        Path temporary = dst.resolveSibling(dst.getFileName() + TMP);
+        write(output -> output.writeObject(parameters), temporary);
+        Files.move(temporary, dst, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Buckets.sync(dst.getParent());
     }
 
-    private static void forEachBucket(int buckets, Path dataPath, IO io) throws IOException {
-        for (int i = 0; i < buckets; i++) {
-            Path bucket = nthBucket(dataPath, i);
-            if (Files.exists(bucket)) {
-                io.apply(bucket, i);
-                Files.delete(bucket);
-            }
-        }
+    private static List<Path> roots(Path path, StorageParameters<?> parameters) {
+        List<Path> roots = new ArrayList<>(parameters.getShards().size() + 1);
+        roots.add(path);
+        roots.addAll(parameters.getShards());
+        return roots;
     }
 
-    private static Path nthBucket(Path dataPath, int n) {
-        return dataPath.resolve(Integer.toString(n));
+    private static void recoverGrowth(Path path) throws IOException, ClassNotFoundException {
+        Path parametersPath = path.resolve(PARAMETERS);
+        Path grownPath = path.resolve(GROWN);
+        boolean committed = Files.exists(grownPath);
+        StorageParameters<?> parameters = cast(readParameters(committed ? grownPath : parametersPath));
+        List<Path> roots = roots(path, parameters);
+        for (Path root : roots) {
+            Buckets.recover(root.resolve(DATA), root.resolve(COPY).resolve(DATA), committed);
+        }
+        if (committed) {
+            Files.move(grownPath, parametersPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Buckets.sync(path);
+        }
+        for (Path root : roots) {
+            Buckets.deleteTree(root.resolve(COPY));
+        }
+        Files.deleteIfExists(path.resolve(PARAMETERS + TMP));
+        Files.deleteIfExists(path.resolve(GROWN + TMP));
     }
 
     public static <K extends Serializable> Storage<K> newStorage(
@@ -95,13 +188,23 @@ public class Storage<A extends Serializable> implements AutoCloseable {
     ) throws IOException {
         Path parametersPath = path.resolve(PARAMETERS);
         Path dataPath = path.resolve(DATA);
+        List<Path> shards = storageParameters.getShards();
         Files.createDirectory(path);
         Files.createDirectory(dataPath);
         Files.createFile(parametersPath);
         try {
+            for (Path shard : shards) {
+                Files.createDirectories(shard.getParent());
+                Files.createDirectory(shard);
+                Files.createDirectory(shard.resolve(DATA));
+            }
             write(out -> out.writeObject(storageParameters), parametersPath);
-            return new Storage<>(path, storageParameters);
+            return new Storage<>(path, storageParameters, null, StorageMetrics.NONE);
         } catch (IOException e) {
+            for (Path shard : shards) {
+                Files.deleteIfExists(shard.resolve(DATA));
+                Files.deleteIfExists(shard);
+            }
             Files.deleteIfExists(parametersPath);
             Files.deleteIfExists(dataPath);
             Files.deleteIfExists(path);
@@ -109,12 +212,65 @@ public class Storage<A extends Serializable> implements AutoCloseable {
         }
     }
 
+    private static Buckets newBuckets(
+        StorageParameters<?> storageParameters,
+        Records records,
+        Path path,
+        StorageMetrics metrics
+    ) throws IOException {
+        BucketFormat format = storageParameters.getBucketFormat();
+        List<Path> shards = storageParameters.getShards();
+        if (shards.isEmpty()) {
+            return Buckets.of(format, records, path.resolve(DATA), path, metrics);
+        }
+        List<Buckets> shardBuckets = new ArrayList<>(shards.size());
+        for (Path shard : shards) {
+            shardBuckets.add(Buckets.of(format, records, shard.resolve(DATA), shard, metrics));
+        }
+        return ShardedBuckets.of(shardBuckets);
+    }
+
     public static <K extends Serializable> Storage<K> loadStorage(
         Path path
+    ) throws IOException, ClassNotFoundException {
+        return loadStorage(path, null);
+    }
+
+    public static <K extends Serializable> Storage<K> loadStorage(
+        Path path,
+        ValueCache cache
+    ) throws IOException, ClassNotFoundException {
+        return loadStorage(path, cache, StorageMetrics.NONE);
+    }
+
+    public static <K extends Serializable> Storage<K> loadStorage(
+        Path path,
+        ValueCache cache,
+        StorageMetrics metrics
     ) throws IOException, ClassNotFoundException {
         Path parametersPath = path.resolve(PARAMETERS);
+        recoverGrowth(path);
         StorageParameters<K> storageParameters = cast(readParameters(parametersPath));
-        return new Storage<>(path, storageParameters);
+        Storage<K> storage = new Storage<>(path, storageParameters, cache, metrics);
+        if (storageParameters.getGrowth() == Growth.LINEAR) {
+            storage.recoverSplit();
+        }
+        boolean filtersLoaded = storage.bloom == null || storage.bloom.load(storageParameters.getCapacity());
+        boolean keysLoaded = storage.ordered == null || storage.ordered.load();
+        if (!storage.snapshot.load(storageParameters, storage.index, storage.size)) {
+            storage.rebuild(!filtersLoaded, !keysLoaded);
+        } else {
+            if (!filtersLoaded) {
+                storage.buildFilters();
+            }
+            if (!keysLoaded) {
+                storage.buildOrdered();
+            }
+        }
+        if (storage.wal != null) {
+            storage.recover();
+        }
+        return storage;
     }
 
     private final Path path;
@@ -122,78 +278,426 @@ public class Storage<A extends Serializable> implements AutoCloseable {
     private final Path parametersPath;
 
     private final StorageParameters<A> storageParameters;
-    private final ReentrantReadWriteLock lock;
+    private final BucketLocks locks;
+    private final AtomicInteger size;
+    private final Records records;
+    private final Buckets buckets;
+    private final RandomAccessBuckets reader;
+    private final boolean appendOnly;
+    private final BitSet uncompacted;
+    private final BitSet expiring;
+    private final KeyIndex index;
+    private final OrderedIndex<A> ordered;
+    private final BloomFilters bloom;
+    private final Snapshot snapshot;
+    private final ValueCache cache;
+    private final StorageMetrics metrics;
+    private final WriteAheadLog wal;
+    private final Object checkpoints;
+    private final AtomicBoolean checkpointScheduled;
+    private final AtomicReference<IOException> checkpointFailure;
+    private volatile boolean closed;
+    private volatile Map<A, KeyValuePair<A, Serializable>> memtable;
+    private volatile Map<A, KeyValuePair<A, Serializable>> flushing;
+    private volatile boolean modified;
+    private int reaped;
 
-    private Storage(Path path, StorageParameters<A> storageParameters) {
+    private Storage(
+        Path path,
+        StorageParameters<A> storageParameters,
+        ValueCache cache,
+        StorageMetrics metrics
+    ) throws IOException {
         this.path = path;
         this.dataPath = path.resolve(DATA);
         this.parametersPath = path.resolve(PARAMETERS);
         this.storageParameters = storageParameters;
-        this.lock = new ReentrantReadWriteLock(true);
+        this.locks = new BucketLocks(metrics);
+        this.size = new AtomicInteger(storageParameters.getSize());
+        this.records = new Records(
+            cast(storageParameters.getKeyCodec()),
+            storageParameters.getValueCodec(),
+            storageParameters.getCompression()
+        );
+        this.buckets = newBuckets(storageParameters, records, path, metrics);
+        this.reader = buckets instanceof RandomAccessBuckets ? (RandomAccessBuckets) buckets : null;
+        this.appendOnly = storageParameters.getBucketFormat() != BucketFormat.OBJECT_STREAM;
+        this.uncompacted = new BitSet();
+        this.uncompacted.set(0, storageParameters.getCapacity());
+        this.expiring = new BitSet();
+        this.expiring.set(0, storageParameters.getCapacity());
+        this.index = storageParameters.isIndexed() && reader != null ? new KeyIndex() : null;
+        this.ordered = storageParameters.isOrdered()
+            ? new OrderedIndex<>(path.resolve(ORDERED), storageParameters.getKeyCodec(), storageParameters.getOrderedLimit())
+            : null;
+        this.bloom = storageParameters.getFalsePositiveRate() > 0 ? new BloomFilters(
+            storageParameters.getFalsePositiveRate(),
+            storageParameters.getCapacity(),
+            path.resolve(BLOOM)
+        ) : null;
+        this.snapshot = new Snapshot(path.resolve(SNAPSHOT));
+        this.cache = cache;
+        this.metrics = metrics;
+        this.wal = storageParameters.getFsyncPolicy() == null ? null : new WriteAheadLog(
+            path.resolve(WAL),
+            records,
+            storageParameters.getFsyncPolicy(),
+            storageParameters.getFsyncInterval(),
+            FLUSHER
+        );
+        this.checkpoints = new Object();
+        this.checkpointScheduled = new AtomicBoolean(false);
+        this.checkpointFailure = new AtomicReference<>();
+        this.closed = false;
+        this.memtable = new ConcurrentHashMap<>();
+        this.flushing = new ConcurrentHashMap<>();
+        this.modified = false;
+        this.reaped = 0;
     }
 
     private int getHash(A key) {
-        return (int) (Integer.toUnsignedLong(storageParameters.hash(key)) % storageParameters.getCapacity());
-    }
-
-    private Path getBucket(A key) throws IOException {
-        int hash = getHash(key);
-        Path bucket = nthBucket(dataPath, hash);
-        if (Files.notExists(bucket)) {
-            Files.createFile(bucket);
-        }
-        return bucket;
+        int splitPointer = storageParameters.getSplitPointer();
+        long modulus = storageParameters.getCapacity() - splitPointer;
+        long hash = Integer.toUnsignedLong(storageParameters.hash(key));
+        int bucket = (int) (hash % modulus);
+        return bucket < splitPointer ? (int) (hash % (modulus * 2)) : bucket;
     }
 
     private Storage<A> copyStorage(int capacity) throws IOException {
-        Path otherPath = dataPath.resolve(COPY);
-        StorageParameters<A> otherParameters = StorageParameters.copyOf(storageParameters);
+        Path otherPath = path.resolve(COPY);
+        List<Path> otherShards = new ArrayList<>();
+        for (Path shard : storageParameters.getShards()) {
+            otherShards.add(shard.resolve(COPY));
+        }
+        StorageParameters<A> otherParameters = StorageParameters.copyOf(storageParameters, otherShards);
         otherParameters.setCapacity(capacity);
         return Storage.newStorage(otherPath, otherParameters);
     }
 
-    private void ensureCapacity() throws IOException {
-        int size = storageParameters.getSize();
+    private boolean exceedsCapacity(int count) {
+        return (long) size.get() + count > storageParameters.getCapacity();
+    }
+
+    private void ensureCapacity(int count) throws IOException {
+        if (!exceedsCapacity(count)) {
+            return;
+        }
+        long stamp = locks.lockAll();
+        long start = System.nanoTime();
         int capacity = storageParameters.getCapacity();
-        if (size == capacity) {
-            Storage<A> other = copyStorage(capacity * 2);
-            forEachBucket(capacity, dataPath, (bucket, i) ->
-                    iterate(bucket, iteration -> {
-                        KeyValuePair<A, Serializable> pair = cast(iteration.object);
-                        try {
-                            other.put(pair.getKey(), pair.getValue());
-                        } catch (InvalidKeyTypeException ignored) {}
-                    })
-            );
-            forEachBucket(capacity * 2, other.dataPath, (otherBucket, i) -> {
-                Path bucket = nthBucket(dataPath, i);
-                Files.createFile(bucket);
-                Files.copy(otherBucket, bucket, StandardCopyOption.REPLACE_EXISTING);
+        try {
+            if (storageParameters.getGrowth() == Growth.LINEAR) {
+                while (exceedsCapacity(count)) {
+                    split();
+                }
+            } else if (exceedsCapacity(count)) {
+                long newCapacity = storageParameters.getCapacity();
+                while (newCapacity < (long) size.get() + count) {
+                    newCapacity *= 2;
+                }
+                grow((int) Math.min(newCapacity, Integer.MAX_VALUE));
+            }
+        } finally {
+            if (storageParameters.getCapacity() != capacity) {
+                metrics.recordResize(System.nanoTime() - start);
+            }
+            locks.unlockAll(stamp);
+        }
+    }
+
+    private void grow(int newCapacity) throws IOException {
+        snapshot.touch();
+        int capacity = storageParameters.getCapacity();
+        int previousSize = storageParameters.getSize();
+        Path grownPath = path.resolve(GROWN);
+        Storage<A> other = copyStorage(newCapacity);
+        try {
+            ForkJoinPool pool = new ForkJoinPool(REHASH_PARALLELISM, REHASH_THREADS, null, false);
+            try {
+                pool.invoke(new Rehash(other, 0, capacity, System.currentTimeMillis()));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                pool.shutdown();
+            }
+            other.buckets.flush();
+            for (Path root : roots(other.path, other.storageParameters)) {
+                Buckets.sync(root.resolve(DATA));
+            }
+            storageParameters.setCapacity(newCapacity);
+            storageParameters.setSize(other.size.get());
+            writeParameters(storageParameters, grownPath);
+        } catch (IOException | RuntimeException e) {
+            storageParameters.setCapacity(capacity);
+            storageParameters.setSize(previousSize);
+            other.buckets.close();
+            for (Path root : roots(path, storageParameters)) {
+                Buckets.deleteTree(root.resolve(COPY));
+            }
+            Files.deleteIfExists(grownPath);
+            throw e;
+        }
+        buckets.adopt(other.buckets, newCapacity);
+        if (bloom != null) {
+            bloom.adopt(other.bloom);
+        }
+        Files.move(grownPath, parametersPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Buckets.sync(path);
+        for (Path root : roots(path, storageParameters)) {
+            Buckets.discard(root.resolve(DATA));
+            Buckets.deleteTree(root.resolve(COPY));
+        }
+        size.set(other.size.get());
+        markUncompacted(0, newCapacity);
+        synchronized (expiring) {
+            expiring.clear();
+            expiring.or(other.expiring);
+        }
+        if (index != null) {
+            buildIndex();
+        }
+    }
+
+    private void rehash(int bucket, Storage<A> target, long now) throws IOException {
+        Map<A, KeyValuePair<A, Serializable>> entries = new LinkedHashMap<>();
+        iterate(bucket, iteration -> {
+            KeyValuePair<A, Serializable> pair = cast(iteration.object);
+            entries.put(pair.getKey(), pair);
+        });
+        entries.values().removeIf(pair -> pair.isExpired(now));
+        target.apply(entries.values());
+    }
+
+    private void rebuild(boolean filters, boolean keys) throws IOException {
+        if (index != null) {
+            index.clear();
+        }
+        if (keys) {
+            ordered.clear();
+        }
+        long now = System.currentTimeMillis();
+        int records = 0;
+        for (int i = 0; i < storageParameters.getCapacity(); i++) {
+            int bucket = i;
+            if (filters) {
+                bloom.clear(bucket);
+            }
+            records += iterate(bucket, iteration -> {
+                KeyValuePair<A, Serializable> pair = cast(iteration.object);
+                if (index != null) {
+                    index(pair, bucket, iteration.position);
+                }
+                if (filters) {
+                    filter(pair, bucket);
+                }
+                if (keys && pair.getValue() != null && !pair.isExpired(now)) {
+                    ordered.add(pair.getKey());
+                }
+                iteration.value++;
+            }, 0);
+        }
+        size.set(records);
+    }
+
+    private void buildIndex() throws IOException {
+        index.clear();
+        for (int i = 0; i < storageParameters.getCapacity(); i++) {
+            int bucket = i;
+            iterate(bucket, iteration -> {
+                KeyValuePair<A, Serializable> pair = cast(iteration.object);
+                index(pair, bucket, iteration.position);
             });
-            Files.delete(other.dataPath);
-            Files.delete(other.parametersPath);
-            Files.delete(other.path);
-            storageParameters.setCapacity(size * 2);
         }
     }
 
-    private <T> T iterate(Path bucket, IterationConsumer<T> consumer) throws IOException {
+    private void buildOrdered() throws IOException {
+        ordered.clear();
+        for (int i = 0; i < storageParameters.getCapacity(); i++) {
+            for (KeyValuePair<A, Serializable> pair : live(i)) {
+                ordered.add(pair.getKey());
+            }
+        }
+    }
+
+    private void order(KeyValuePair<A, Serializable> pair) throws IOException {
+        if (ordered == null) {
+            return;
+        }
+        if (pair.getValue() == null) {
+            ordered.remove(pair.getKey());
+        } else {
+            ordered.add(pair.getKey());
+        }
+    }
+
+    private void unorder(A key) throws IOException {
+        if (ordered != null && !memtable.containsKey(key) && !flushing.containsKey(key)) {
+            ordered.remove(key);
+        }
+    }
+
+    private void index(KeyValuePair<A, Serializable> pair, int bucket, long position) throws IOException {
+        index.put(
+            storageParameters.hash(pair.getKey()),
+            bucket,
+            position,
+            candidate -> pair.equals(reader.read(bucket, candidate))
+        );
+    }
+
+    private void index(KeyValuePair<A, Serializable> pair, int bucket, long position, boolean fresh) throws IOException {
+        if (fresh) {
+            index.add(storageParameters.hash(pair.getKey()), bucket, position);
+        } else {
+            index(pair, bucket, position);
+        }
+    }
+
+    private void buildFilters() throws IOException {
+        for (int i = 0; i < storageParameters.getCapacity(); i++) {
+            buildFilter(i);
+        }
+    }
+
+    private void buildFilter(int bucket) throws IOException {
+        bloom.clear(bucket);
+        iterate(bucket, iteration -> filter(cast(iteration.object), bucket));
+    }
+
+    private void filter(KeyValuePair<A, Serializable> pair, int bucket) throws IOException {
+        if (bloom != null) {
+            bloom.add(bucket, storageParameters.hash(pair.getKey()));
+        }
+    }
+
+    private boolean isFresh(A key, int bucket) {
+        return bloom != null && !bloom.mightContain(bucket, storageParameters.hash(key));
+    }
+
+    private void move(KeyValuePair<A, Serializable> pair, int bucket, long position, int newBucket, long newPosition) {
+        if (index != null) {
+            index.move(storageParameters.hash(pair.getKey()), bucket, position, newBucket, newPosition);
+        }
+    }
+
+    private void split() throws IOException {
+        snapshot.touch();
+        int splitPointer = storageParameters.getSplitPointer();
+        int capacity = storageParameters.getCapacity();
+        long modulus = (capacity - splitPointer) * 2L;
+        if (bloom != null) {
+            bloom.resize(capacity + 1);
+        }
+        try {
+            buckets.rewrite(capacity, writer -> iterate(splitPointer, iteration -> {
+                KeyValuePair<A, Serializable> pair = cast(iteration.object);
+                if (Integer.toUnsignedLong(storageParameters.hash(pair.getKey())) % modulus == capacity) {
+                    filter(pair, capacity);
+                    move(pair, splitPointer, iteration.position, capacity, writer.write(pair));
+                }
+            }));
+            commitSplit(capacity + 1, splitPointer + 1 == modulus / 2 ? 0 : splitPointer + 1);
+            markUncompacted(splitPointer, splitPointer + 1);
+            markUncompacted(capacity, capacity + 1);
+            synchronized (expiring) {
+                expiring.set(capacity, expiring.get(splitPointer));
+            }
+            if (bloom != null) {
+                bloom.clear(splitPointer);
+            }
+            strip(splitPointer);
+        } catch (IOException e) {
+            if (index != null) {
+                buildIndex();
+            }
+            if (bloom != null) {
+                buildFilter(splitPointer);
+                buildFilter(capacity);
+            }
+            throw e;
+        }
+    }
+
+    private void commitSplit(int capacity, int splitPointer) throws IOException {
+        int previousCapacity = storageParameters.getCapacity();
+        int previousSplitPointer = storageParameters.getSplitPointer();
+        buckets.flush();
+        for (Path root : roots(path, storageParameters)) {
+            Buckets.sync(root.resolve(DATA));
+        }
+        storageParameters.setCapacity(capacity);
+        storageParameters.setSplitPointer(splitPointer);
+        storageParameters.setSize(size.get());
+        try {
+            writeParameters(storageParameters, parametersPath);
+        } catch (IOException | RuntimeException e) {
+            storageParameters.setCapacity(previousCapacity);
+            storageParameters.setSplitPointer(previousSplitPointer);
+            throw e;
+        }
+    }
+
+    private void strip(int bucket) throws IOException {
+        buckets.rewrite(bucket, writer -> iterate(bucket, iteration -> {
+            KeyValuePair<A, Serializable> pair = cast(iteration.object);
+            if (getHash(pair.getKey()) == bucket) {
+                filter(pair, bucket);
+                move(pair, bucket, iteration.position, bucket, writer.write(pair));
+            }
+        }));
+    }
+
+    private void recoverSplit() throws IOException {
+        int splitPointer = storageParameters.getSplitPointer();
+        int bucket = splitPointer == 0 ? storageParameters.getCapacity() / 2 - 1 : splitPointer - 1;
+        if (bucket < 0) {
+            return;
+        }
+        boolean stale = iterate(bucket, iteration -> {
+            KeyValuePair<A, Serializable> pair = cast(iteration.object);
+            if (getHash(pair.getKey()) != bucket) {
+                iteration.value = true;
+                iteration.resume = false;
+            }
+        }, false);
+        if (stale) {
+            strip(bucket);
+            buckets.flush();
+        }
+    }
+
+    private void markExpiring(KeyValuePair<A, Serializable> pair, int bucket) {
+        if (pair.getExpiresAt() != KeyValuePair.NEVER) {
+            synchronized (expiring) {
+                expiring.set(bucket);
+            }
+        }
+    }
+
+    private void markUncompacted(int from, int to) {
+        synchronized (uncompacted) {
+            uncompacted.set(from, to);
+        }
+    }
+
+    private <T> T iterate(int bucket, IterationConsumer<T> consumer) throws IOException {
         return iterate(bucket, consumer, null);
     }
 
-    private <T> T iterate(Path bucket, IterationConsumer<T> consumer, T initialValue) throws IOException {
+    private <T> T iterate(int bucket, IterationConsumer<T> consumer, T initialValue) throws IOException {
         Iteration<T> iteration = new Iteration<>(initialValue);
+        int[] scanned = {0};
         try {
-            return cast(read(input -> {
-                while (true) {
-                    iteration.object = input.readObject();
-                    consumer.apply(iteration);
-                    if (!iteration.resume) {
-                        return iteration.value;
-                    }
-                }
-            }, bucket));
-        } catch (EOFException | ClassNotFoundException ignored) { }
+            buckets.forEach(bucket, (pair, position) -> {
+                scanned[0]++;
+                iteration.object = pair;
+                iteration.position = position;
+                consumer.apply(iteration);
+                return iteration.resume;
+            });
+        } finally {
+            metrics.recordScan(scanned[0]);
+        }
         return iteration.value;
     }
 
@@ -207,59 +711,748 @@ public class Storage<A extends Serializable> implements AutoCloseable {
         }
     }
 
+    private KeyValuePair<A, Serializable> pending(A key) {
+        if (wal == null) {
+            return null;
+        }
+        KeyValuePair<A, Serializable> pair = memtable.get(key);
+        return pair == null ? flushing.get(key) : pair;
+    }
+
+    private static <K extends Serializable> KeyValuePair<K, Serializable> unexpired(KeyValuePair<K, Serializable> pair) {
+        return pair == null || pair.isExpired(System.currentTimeMillis()) ? null : pair;
+    }
+
+    private KeyValuePair<A, Serializable> get(int bucket, A key) throws IOException {
+        KeyValuePair<A, Serializable> pending = pending(key);
+        if (pending != null) {
+            return unexpired(pending);
+        }
+        if (isFresh(key, bucket)) {
+            return null;
+        }
+        KeyValuePair<A, Serializable> pair = new KeyValuePair<>(key, null);
+        if (index != null) {
+            Iteration<KeyValuePair<A, Serializable>> iteration = new Iteration<>(null);
+            boolean found = index.find(storageParameters.hash(key), bucket, position -> {
+                iteration.value = cast(reader.read(bucket, position));
+                return pair.equals(iteration.value);
+            });
+            return found ? unexpired(iteration.value) : null;
+        }
+        return unexpired(iterate(bucket, iteration -> {
+            if (pair.equals(iteration.object)) {
+                iteration.value = cast(iteration.object);
+                iteration.resume = appendOnly;
+            }
+        }));
+    }
+
+    private void cache(A key, KeyValuePair<A, Serializable> pair) {
+        if (cache != null) {
+            if (pair == null) {
+                cache.invalidate(key);
+            } else {
+                cache.put(key, pair.getValue(), pair.getExpiresAt());
+            }
+        }
+    }
+
     public Serializable get(A key) throws IOException, InvalidKeyTypeException {
         instanceCheck(key);
-        lock.readLock().lock();
+        long start = System.nanoTime();
         try {
-            KeyValuePair<A, Serializable> pair = new KeyValuePair<>(key, null);
-            return iterate(getBucket(key), iteration -> {
-                if (pair.equals(iteration.object)) {
-                    iteration.value = Storage.<KeyValuePair<A, Serializable>>cast(iteration.object).getValue();
-                    iteration.resume = false;
+            if (cache != null) {
+                Serializable value = cache.get(key);
+                if (value != null) {
+                    return value;
                 }
-            });
+            }
+            int bucket = locks.lock(() -> getHash(key), false);
+            try {
+                KeyValuePair<A, Serializable> pair = get(bucket, key);
+                cache(key, pair);
+                return pair == null ? null : pair.getValue();
+            } finally {
+                locks.unlock(bucket, false);
+            }
         } finally {
-            lock.readLock().unlock();
+            metrics.recordGet(System.nanoTime() - start);
         }
     }
 
+    private <T> Map<Integer, List<T>> groupByBucket(Collection<T> items, Function<T, A> key) {
+        Map<Integer, List<T>> groups = new TreeMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(getHash(key.apply(item)), bucket -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    public <K extends A> Map<K, Serializable> getAll(Collection<K> keys) throws IOException, InvalidKeyTypeException {
+        for (K key : keys) {
+            instanceCheck(key);
+        }
+        Map<K, Serializable> values = new HashMap<>();
+        List<K> missing = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            Serializable value = cache == null ? null : cache.get(key);
+            if (value == null) {
+                missing.add(key);
+            } else {
+                values.put(key, value);
+            }
+        }
+        long stamp = locks.lockLayout();
+        try {
+            for (Map.Entry<Integer, List<K>> group : groupByBucket(missing, key -> key).entrySet()) {
+                int bucket = group.getKey();
+                locks.lock(bucket, false);
+                try {
+                    Map<K, KeyValuePair<A, Serializable>> pairs = new HashMap<>();
+                    getAll(bucket, group.getValue(), pairs);
+                    for (K key : group.getValue()) {
+                        KeyValuePair<A, Serializable> pair = pairs.get(key);
+                        cache(key, pair);
+                        if (pair != null && pair.getValue() != null) {
+                            values.put(key, pair.getValue());
+                        }
+                    }
+                } finally {
+                    locks.unlock(bucket, false);
+                }
+            }
+        } finally {
+            locks.unlockLayout(stamp);
+        }
+        return values;
+    }
+
+    private <K extends A> void getAll(
+        int bucket,
+        List<K> keys,
+        Map<K, KeyValuePair<A, Serializable>> pairs
+    ) throws IOException {
+        if (bloom != null && wal == null) {
+            List<K> candidates = new ArrayList<>(keys.size());
+            for (K key : keys) {
+                if (!isFresh(key, bucket)) {
+                    candidates.add(key);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return;
+            }
+            keys = candidates;
+        }
+        if (wal != null || index != null || keys.size() == 1) {
+            for (K key : keys) {
+                KeyValuePair<A, Serializable> pair = get(bucket, key);
+                if (pair != null) {
+                    pairs.put(key, pair);
+                }
+            }
+            return;
+        }
+        Set<K> wanted = new HashSet<>(keys);
+        Map<K, KeyValuePair<A, Serializable>> found = new HashMap<>();
+        iterate(bucket, iteration -> {
+            KeyValuePair<A, Serializable> pair = cast(iteration.object);
+            if (wanted.contains(pair.getKey())) {
+                found.put(cast(pair.getKey()), pair);
+                iteration.resume = appendOnly || found.size() < wanted.size();
+            }
+        });
+        found.forEach((key, pair) -> {
+            if (unexpired(pair) != null) {
+                pairs.put(key, pair);
+            }
+        });
+    }
+
+    public ScanCursor scan(ScanCursor cursor, int limit, ScanVisitor<A> visitor) throws IOException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Scan limit must be positive");
+        }
+        int bucket = cursor.getBucket();
+        long offset = cursor.getOffset();
+        Map<Integer, Map<A, KeyValuePair<A, Serializable>>> pending = Collections.emptyMap();
+        long layout = -1;
+        while (limit > 0) {
+            int current = bucket;
+            List<KeyValuePair<A, Serializable>> live = new ArrayList<>();
+            locks.lock(() -> current, false);
+            try {
+                if (current >= storageParameters.getCapacity()) {
+                    return null;
+                }
+                long observed = (long) storageParameters.getCapacity() << Integer.SIZE | storageParameters.getSplitPointer();
+                if (wal != null && observed != layout) {
+                    pending = pendingByBucket();
+                    layout = observed;
+                }
+                live.addAll(live(current, pending.getOrDefault(current, Collections.emptyMap())));
+            } finally {
+                locks.unlock(current, false);
+            }
+            int from = (int) Math.min(offset, live.size());
+            int to = (int) Math.min((long) from + limit, live.size());
+            for (int i = from; i < to; i++) {
+                KeyValuePair<A, Serializable> pair = live.get(i);
+                visitor.visit(
+                    pair.getKey(),
+                    pair.getValue(),
+                    i + 1 < live.size() ? new ScanCursor(current, i + 1) : new ScanCursor(current + 1, 0)
+                );
+            }
+            limit -= to - from;
+            if (to < live.size()) {
+                return new ScanCursor(current, to);
+            }
+            bucket = current + 1;
+            offset = 0;
+        }
+        return bucket < storageParameters.getCapacity() ? new ScanCursor(bucket, 0) : null;
+    }
+
+    public Map<A, Serializable> range(A from, A to, int limit) throws IOException, InvalidKeyTypeException {
+        if (from != null) {
+            instanceCheck(from);
+        }
+        if (to != null) {
+            instanceCheck(to);
+        }
+        return range(ordered().range(from, to), key -> true, limit);
+    }
+
+    public Map<A, Serializable> prefix(String prefix, int limit) throws IOException, InvalidKeyTypeException {
+        if (storageParameters.getKeyClass() != String.class) {
+            throw new InvalidKeyTypeException("Prefix queries require String keys");
+        }
+        A from = cast(prefix);
+        return range(ordered().range(from, null), key -> ((String) key).startsWith(prefix), limit);
+    }
+
+    private OrderedIndex<A> ordered() {
+        if (ordered == null) {
+            throw new IllegalArgumentException("Storage has no ordered index");
+        }
+        if (ordered.isOverflowed()) {
+            throw new IllegalArgumentException(
+                "Ordered index was dropped after exceeding " + storageParameters.getOrderedLimit() + " keys"
+            );
+        }
+        return ordered;
+    }
+
+    private Map<A, Serializable> range(
+        NavigableSet<A> keys,
+        Predicate<A> matches,
+        int limit
+    ) throws IOException, InvalidKeyTypeException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Range limit must be positive");
+        }
+        Map<A, Serializable> result = new LinkedHashMap<>();
+        Iterator<A> iterator = keys.iterator();
+        List<A> batch = new ArrayList<>();
+        boolean more = true;
+        while (more && result.size() < limit) {
+            batch.clear();
+            while (batch.size() < limit - result.size() && iterator.hasNext()) {
+                A key = iterator.next();
+                if (!matches.test(key)) {
+                    more = false;
+                    break;
+                }
+                batch.add(key);
+            }
+            more &= iterator.hasNext();
+            Map<A, Serializable> values = getAll(batch);
+            for (A key : batch) {
+                Serializable value = values.get(key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+        }
+        return result;
+    }
+
+    private Collection<KeyValuePair<A, Serializable>> live(int bucket) throws IOException {
+        return live(bucket, Collections.emptyMap());
+    }
+
+    private Collection<KeyValuePair<A, Serializable>> live(
+        int bucket,
+        Map<A, KeyValuePair<A, Serializable>> pending
+    ) throws IOException {
+        Map<A, KeyValuePair<A, Serializable>> latest = new LinkedHashMap<>();
+        iterate(bucket, iteration -> {
+            KeyValuePair<A, Serializable> pair = cast(iteration.object);
+            latest.put(pair.getKey(), pair);
+        });
+        latest.putAll(pending);
+        long now = System.currentTimeMillis();
+        latest.values().removeIf(pair -> pair.getValue() == null || pair.isExpired(now));
+        return latest.values();
+    }
+
+    private Map<Integer, Map<A, KeyValuePair<A, Serializable>>> pendingByBucket() {
+        Map<Integer, Map<A, KeyValuePair<A, Serializable>>> pending = new HashMap<>();
+        for (KeyValuePair<A, Serializable> pair : memtable.values()) {
+            pending.computeIfAbsent(getHash(pair.getKey()), bucket -> new LinkedHashMap<>()).put(pair.getKey(), pair);
+        }
+        for (KeyValuePair<A, Serializable> pair : flushing.values()) {
+            pending.computeIfAbsent(getHash(pair.getKey()), bucket -> new LinkedHashMap<>())
+                .putIfAbsent(pair.getKey(), pair);
+        }
+        return pending;
+    }
+
+    private static long expiresAt(long ttl) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("TTL must be positive");
+        }
+        return System.currentTimeMillis() + ttl;
+    }
+
     public <K extends A> void put(K key, Serializable value) throws IOException, InvalidKeyTypeException {
-        instanceCheck(key);
-        lock.writeLock().lock();
+        put(new KeyValuePair<>(key, value));
+    }
+
+    public <K extends A> void put(K key, Serializable value, long ttl) throws IOException, InvalidKeyTypeException {
+        put(new KeyValuePair<>(key, value, expiresAt(ttl)));
+    }
+
+    private void put(KeyValuePair<A, Serializable> pair) throws IOException, InvalidKeyTypeException {
+        instanceCheck(pair.getKey());
+        long start = System.nanoTime();
+        try {
+            write(pair);
+        } finally {
+            metrics.recordPut(System.nanoTime() - start);
+        }
+    }
+
+    private void write(KeyValuePair<A, Serializable> pair) throws IOException {
+        A key = pair.getKey();
+        if (wal != null) {
+            log(Collections.singletonList(pair));
+            return;
+        }
+        ensureCapacity(1);
+        int bucket = locks.lock(() -> getHash(key), true);
         try {
-            ensureCapacity();
-            KeyValuePair<K, Serializable> pair = new KeyValuePair<>(key, value);
-            Path temporaryBucket = Files.createTempFile(path, TMP, "");
-            Path bucket = getBucket(key);
-            write(output -> {
-                if (!iterate(bucket, iteration -> {
-                    if (pair.equals(iteration.object)) {
-                        output.writeObject(pair);
-                        iteration.value = true;
-                    } else {
-                        output.writeObject(iteration.object);
+            snapshot.touch();
+            invalidate(key);
+            boolean fresh = isFresh(key, bucket);
+            filter(pair, bucket);
+            markExpiring(pair, bucket);
+            order(pair);
+            if (appendOnly) {
+                long position = buckets.append(bucket, pair);
+                if (index != null) {
+                    index(pair, bucket, position, fresh);
+                }
+                size.incrementAndGet();
+                markUncompacted(bucket, bucket + 1);
+            } else if (fresh) {
+                buckets.append(bucket, pair);
+                size.incrementAndGet();
+            } else {
+                buckets.rewrite(bucket, writer -> {
+                    if (!iterate(bucket, iteration -> {
+                        if (pair.equals(iteration.object)) {
+                            writer.write(pair);
+                            iteration.value = true;
+                        } else {
+                            writer.write(cast(iteration.object));
+                        }
+                    }, false)) {
+                        writer.write(pair);
+                        size.incrementAndGet();
                     }
-                }, false)) {
-                    output.writeObject(pair);
-                    storageParameters.setSize(storageParameters.getSize() + 1);
+                });
+            }
+            modified = true;
+        } finally {
+            locks.unlock(bucket, true);
+        }
+    }
+
+    public <K extends A> void putAll(Map<K, ? extends Serializable> entries) throws IOException, InvalidKeyTypeException {
+        write(entries, KeyValuePair.NEVER);
+    }
+
+    public <K extends A> void putAll(
+        Map<K, ? extends Serializable> entries,
+        long ttl
+    ) throws IOException, InvalidKeyTypeException {
+        write(entries, expiresAt(ttl));
+    }
+
+    private <K extends A> void write(
+        Map<K, ? extends Serializable> entries,
+        long expiresAt
+    ) throws IOException, InvalidKeyTypeException {
+        List<KeyValuePair<A, Serializable>> pairs = new ArrayList<>(entries.size());
+        for (Map.Entry<K, ? extends Serializable> entry : entries.entrySet()) {
+            instanceCheck(entry.getKey());
+            pairs.add(new KeyValuePair<>(entry.getKey(), entry.getValue(), expiresAt));
+        }
+        if (wal != null) {
+            log(pairs);
+        } else {
+            apply(pairs);
+        }
+    }
+
+    private void log(Collection<KeyValuePair<A, Serializable>> pairs) throws IOException {
+        IOException failure = checkpointFailure.getAndSet(null);
+        if (failure != null) {
+            throw new IOException("Background checkpoint of " + path + " failed", failure);
+        }
+        long sequence = 0;
+        long stamp = locks.lockLayout();
+        try {
+            for (Map.Entry<Integer, List<KeyValuePair<A, Serializable>>> group :
+                groupByBucket(pairs, KeyValuePair::getKey).entrySet()) {
+                int bucket = group.getKey();
+                locks.lock(bucket, true);
+                try {
+                    for (KeyValuePair<A, Serializable> pair : group.getValue()) {
+                        sequence = wal.append(pair);
+                        memtable.put(pair.getKey(), pair);
+                        invalidate(pair.getKey());
+                        order(pair);
+                    }
+                } finally {
+                    locks.unlock(bucket, true);
                 }
-            }, temporaryBucket);
+            }
+        } finally {
+            locks.unlockLayout(stamp);
+        }
+        wal.sync(sequence);
+        if (memtable.size() >= CHECKPOINT_LIMIT) {
+            checkpoint();
+        } else if (memtable.size() >= CHECKPOINT_THRESHOLD && checkpointScheduled.compareAndSet(false, true)) {
+            FLUSHER.execute(() -> {
+                try {
+                    if (!closed) {
+                        checkpoint();
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(System.Logger.Level.ERROR, "Background checkpoint of " + path + " failed", e);
+                    checkpointFailure.set(e);
+                } finally {
+                    checkpointScheduled.set(false);
+                }
+            });
+        }
+    }
 
-            Files.copy(temporaryBucket, bucket, StandardCopyOption.REPLACE_EXISTING);
-            Files.deleteIfExists(temporaryBucket);
+    private void apply(Collection<KeyValuePair<A, Serializable>> pairs) throws IOException {
+        long stamp = locks.lockLayout();
+        try {
+            buckets.forEachGroup(groupByBucket(pairs, KeyValuePair::getKey), (bucket, group) -> {
+                locks.lock(bucket, true);
+                try {
+                    putAll(bucket, group);
+                } finally {
+                    locks.unlock(bucket, true);
+                }
+                modified = true;
+            });
         } finally {
-            lock.writeLock().unlock();
+            locks.unlockLayout(stamp);
         }
+        ensureCapacity(0);
+    }
+
+    private void invalidate(A key) {
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    private void putAll(int bucket, List<KeyValuePair<A, Serializable>> pairs) throws IOException {
+        snapshot.touch();
+        boolean[] fresh = new boolean[pairs.size()];
+        boolean allFresh = true;
+        for (int i = 0; i < pairs.size(); i++) {
+            KeyValuePair<A, Serializable> pair = pairs.get(i);
+            invalidate(pair.getKey());
+            fresh[i] = isFresh(pair.getKey(), bucket);
+            allFresh &= fresh[i];
+            filter(pair, bucket);
+            markExpiring(pair, bucket);
+            order(pair);
+        }
+        if (appendOnly || allFresh) {
+            long[] positions = new long[pairs.size()];
+            int[] written = {0};
+            try {
+                buckets.append(bucket, writer -> {
+                    for (KeyValuePair<A, Serializable> pair : pairs) {
+                        positions[written[0]] = writer.write(pair);
+                        written[0]++;
+                    }
+                });
+            } finally {
+                size.addAndGet(written[0]);
+                markUncompacted(bucket, bucket + 1);
+                if (index != null) {
+                    for (int i = 0; i < written[0]; i++) {
+                        index(pairs.get(i), bucket, positions[i], fresh[i]);
+                    }
+                }
+            }
+            return;
+        }
+        Map<A, KeyValuePair<A, Serializable>> pending = new LinkedHashMap<>();
+        for (KeyValuePair<A, Serializable> pair : pairs) {
+            pending.put(pair.getKey(), pair);
+        }
+        buckets.rewrite(bucket, writer -> {
+            iterate(bucket, iteration -> {
+                KeyValuePair<A, Serializable> pair = cast(iteration.object);
+                KeyValuePair<A, Serializable> replacement = pending.remove(pair.getKey());
+                writer.write(replacement == null ? pair : replacement);
+            });
+            for (KeyValuePair<A, Serializable> pair : pending.values()) {
+                writer.write(pair);
+            }
+        });
+        size.addAndGet(pending.size());
+    }
+
+    public void compact() throws IOException {
+        if (!appendOnly) {
+            return;
+        }
+        int next = 0;
+        while (true) {
+            int from = next;
+            int bucket = locks.lock(() -> {
+                synchronized (uncompacted) {
+                    return uncompacted.nextSetBit(from);
+                }
+            }, true);
+            try {
+                if (bucket < 0 || bucket >= storageParameters.getCapacity()) {
+                    return;
+                }
+                compact(bucket);
+                synchronized (uncompacted) {
+                    uncompacted.clear(bucket);
+                }
+            } finally {
+                locks.unlock(bucket, true);
+            }
+            next = bucket + 1;
+        }
+    }
+
+    private void compact(int bucket) throws IOException {
+        Map<A, Long> positions = new HashMap<>();
+        Map<A, KeyValuePair<A, Serializable>> latest = new LinkedHashMap<>();
+        int records = iterate(bucket, iteration -> {
+            KeyValuePair<A, Serializable> pair = cast(iteration.object);
+            positions.put(pair.getKey(), iteration.position);
+            latest.put(pair.getKey(), pair);
+            iteration.value++;
+        }, 0);
+        int garbage = records - latest.size();
+        if (garbage > 0 && garbage >= storageParameters.getCompactionThreshold() * records) {
+            snapshot.touch();
+            try {
+                buckets.rewrite(bucket, writer -> {
+                    for (KeyValuePair<A, Serializable> pair : latest.values()) {
+                        move(pair, bucket, positions.get(pair.getKey()), bucket, writer.write(pair));
+                    }
+                });
+            } catch (IOException e) {
+                if (index != null) {
+                    buildIndex();
+                }
+                throw e;
+            }
+            size.addAndGet(-garbage);
+            modified = true;
+        }
+    }
+
+    public int reap(int maxBuckets) throws IOException {
+        int removed = 0;
+        for (int i = 0; i < maxBuckets; i++) {
+            int bucket = locks.lock(() -> {
+                synchronized (expiring) {
+                    return expiring.nextSetBit(reaped);
+                }
+            }, true);
+            try {
+                if (bucket < 0 || bucket >= storageParameters.getCapacity()) {
+                    reaped = 0;
+                    return removed;
+                }
+                removed += expire(bucket);
+                reaped = bucket + 1;
+            } finally {
+                locks.unlock(bucket, true);
+            }
+        }
+        return removed;
+    }
+
+    private int expire(int bucket) throws IOException {
+        long now = System.currentTimeMillis();
+        Map<A, Long> positions = new HashMap<>();
+        Map<A, KeyValuePair<A, Serializable>> latest = new LinkedHashMap<>();
+        int records = iterate(bucket, iteration -> {
+            KeyValuePair<A, Serializable> pair = cast(iteration.object);
+            positions.put(pair.getKey(), iteration.position);
+            latest.put(pair.getKey(), pair);
+            iteration.value++;
+        }, 0);
+        int expired = 0;
+        int removed = 0;
+        boolean ttl = false;
+        for (KeyValuePair<A, Serializable> pair : latest.values()) {
+            if (pair.isExpired(now)) {
+                expired++;
+            } else {
+                ttl |= pair.getExpiresAt() != KeyValuePair.NEVER;
+            }
+        }
+        if (expired > 0) {
+            snapshot.touch();
+            try {
+                buckets.rewrite(bucket, writer -> {
+                    for (KeyValuePair<A, Serializable> pair : latest.values()) {
+                        long position = positions.get(pair.getKey());
+                        if (pair.isExpired(now)) {
+                            if (index != null) {
+                                index.remove(storageParameters.hash(pair.getKey()), bucket, position);
+                            }
+                            unorder(pair.getKey());
+                        } else {
+                            move(pair, bucket, position, bucket, writer.write(pair));
+                        }
+                    }
+                });
+            } catch (IOException e) {
+                if (index != null) {
+                    buildIndex();
+                }
+                throw e;
+            }
+            removed = records - (latest.size() - expired);
+            size.addAndGet(-removed);
+            modified = true;
+        }
+        if (!ttl) {
+            synchronized (expiring) {
+                expiring.clear(bucket);
+            }
+        }
+        return removed;
+    }
+
+    private void checkpoint() throws IOException {
+        synchronized (checkpoints) {
+            long generation;
+            long stamp = locks.lockAll();
+            try {
+                if (memtable.isEmpty() && flushing.isEmpty()) {
+                    return;
+                }
+                Map<A, KeyValuePair<A, Serializable>> merged = new ConcurrentHashMap<>(flushing);
+                merged.putAll(memtable);
+                flushing = merged;
+                memtable = new ConcurrentHashMap<>();
+                generation = wal.rotate();
+            } finally {
+                locks.unlockAll(stamp);
+            }
+            apply(new ArrayList<>(flushing.values()));
+            persist();
+            wal.discard(generation);
+            flushing = new ConcurrentHashMap<>();
+        }
+    }
+
+    private void recover() throws IOException {
+        Map<A, KeyValuePair<A, Serializable>> entries = new LinkedHashMap<>();
+        wal.replay(pair -> entries.put(cast(pair.getKey()), cast(pair)));
+        if (!entries.isEmpty()) {
+            apply(entries.values());
+            persist();
+        }
+        wal.discard(wal.generation());
+    }
+
+    public ValueCache getCache() {
+        return cache;
     }
 
     public StorageParameters<A> getStorageParameters() {
+        storageParameters.setSize(size.get());
         return storageParameters;
     }
 
+    public void flush() throws IOException {
+        if (wal != null) {
+            checkpoint();
+        }
+        persist();
+    }
+
+    private void persist() throws IOException {
+        long stamp = locks.lockAll();
+        try {
+            if (modified) {
+                buckets.flush();
+                storageParameters.setSize(size.get());
+                writeParameters(storageParameters, parametersPath);
+                modified = false;
+            }
+            if (bloom != null) {
+                bloom.save();
+            }
+            if (ordered != null) {
+                ordered.save();
+            }
+            snapshot.save(storageParameters, size.get(), index);
+        } finally {
+            locks.unlockAll(stamp);
+        }
+    }
+
     @Override
     public void close() throws IOException {
+        closed = true;
+        if (wal != null) {
+            checkpoint();
+            wal.close();
+        }
+        long stamp = locks.lockAll();
         try {
+            buckets.flush();
+            buckets.close();
+            if (bloom != null) {
+                bloom.save();
+            }
+            if (ordered != null) {
+                ordered.save();
+            }
+            storageParameters.setSize(size.get());
             writeParameters(storageParameters, parametersPath);
-        } catch (InvalidKeyTypeException ignored) {}
+            snapshot.save(storageParameters, size.get(), index);
+            modified = false;
+        } finally {
+            locks.unlockAll(stamp);
+        }
     }
 }
@@ -0,0 +1,19 @@
+package db.storage;
+
+public interface StorageMetrics {
+    StorageMetrics NONE = new StorageMetrics() {};
+
+    default void recordGet(long nanos) {}
+
+    default void recordPut(long nanos) {}
+
+    default void recordScan(int records) {}
+
+    default void recordRead(long bytes) {}
+
+    default void recordWrite(long bytes) {}
+
+    default void recordResize(long nanos) {}
+
+    default void recordLockWait(long nanos) {}
+}
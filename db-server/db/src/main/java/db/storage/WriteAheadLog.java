@@ -0,0 +1,244 @@
+package db.storage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+class WriteAheadLog implements Closeable {
+    private static final int FRAME_HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    interface Replay {
+        void apply(KeyValuePair<Serializable, Serializable> pair) throws IOException;
+    }
+
+    private final Path walPath;
+    private final Records records;
+    private final FsyncPolicy policy;
+    private final long interval;
+    private final Object monitor;
+    private final ScheduledFuture<?> timer;
+    private FileChannel channel;
+    private long generation;
+    private long written;
+    private long synced;
+    private volatile long lastSync;
+    private boolean syncing;
+
+    WriteAheadLog(
+        Path walPath,
+        Records records,
+        FsyncPolicy policy,
+        long interval,
+        ScheduledExecutorService scheduler
+    ) throws IOException {
+        this.walPath = walPath;
+        this.records = records;
+        this.policy = policy;
+        this.interval = interval;
+        this.monitor = new Object();
+        Files.createDirectories(walPath);
+        List<Long> generations = generations();
+        this.generation = generations.isEmpty() ? 0 : generations.get(generations.size() - 1) + 1;
+        this.channel = open(generation);
+        this.lastSync = System.currentTimeMillis();
+        this.timer = policy == FsyncPolicy.INTERVAL ? scheduler.scheduleWithFixedDelay(
+            this::syncWritten,
+            Math.max(1, interval),
+            Math.max(1, interval),
+            TimeUnit.MILLISECONDS
+        ) : null;
+    }
+
+    private Path nthGeneration(long n) {
+        return walPath.resolve(Long.toString(n));
+    }
+
+    private FileChannel open(long n) throws IOException {
+        return FileChannel.open(
+            nthGeneration(n),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND
+        );
+    }
+
+    private List<Long> generations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(walPath)) {
+            for (Path file : files) {
+                try {
+                    generations.add(Long.parseLong(file.getFileName().toString()));
+                } catch (NumberFormatException ignored) {}
+            }
+        }
+        generations.sort(Long::compare);
+        return generations;
+    }
+
+    private static long checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return crc.getValue();
+    }
+
+    long generation() {
+        synchronized (monitor) {
+            return generation;
+        }
+    }
+
+    void replay(Replay replay) throws IOException {
+        for (long n : generations()) {
+            if (n >= generation()) {
+                return;
+            }
+            Path log = nthGeneration(n);
+            long remaining = Files.size(log);
+            try (DataInputStream input = new DataInputStream(new PooledInputStream(log))) {
+                while (remaining >= FRAME_HEADER_SIZE) {
+                    int length = input.readInt();
+                    long checksum = input.readLong();
+                    remaining -= FRAME_HEADER_SIZE;
+                    if (length < 0 || length > remaining) {
+                        break;
+                    }
+                    byte[] record = new byte[length];
+                    input.readFully(record);
+                    remaining -= length;
+                    if (checksum(record) != checksum) {
+                        break;
+                    }
+                    replay.apply(records.decode(record));
+                }
+            }
+        }
+    }
+
+    long append(KeyValuePair<?, ?> pair) throws IOException {
+        byte[] record = records.encode(pair);
+        ByteBuffer frame = BufferPool.acquire(FRAME_HEADER_SIZE + record.length);
+        try {
+            frame.putInt(record.length).putLong(checksum(record));
+            frame.put(record).flip();
+            synchronized (monitor) {
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+                written += FRAME_HEADER_SIZE + record.length;
+                return written;
+            }
+        } finally {
+            BufferPool.release(frame);
+        }
+    }
+
+    void sync(long sequence) throws IOException {
+        switch (policy) {
+            case ALWAYS:
+                await(sequence);
+                break;
+            case INTERVAL:
+                if (System.currentTimeMillis() - lastSync >= interval) {
+                    await(sequence);
+                }
+                break;
+            case NEVER:
+            default:
+                break;
+        }
+    }
+
+    private void syncWritten() {
+        long sequence;
+        synchronized (monitor) {
+            if (!channel.isOpen()) {
+                return;
+            }
+            sequence = written;
+        }
+        try {
+            await(sequence);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void await(long sequence) throws IOException {
+        long target;
+        FileChannel syncChannel;
+        synchronized (monitor) {
+            try {
+                while (syncing && synced < sequence) {
+                    monitor.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            if (synced >= sequence) {
+                return;
+            }
+            syncing = true;
+            target = written;
+            syncChannel = channel;
+        }
+        try {
+            syncChannel.force(false);
+            synchronized (monitor) {
+                synced = Math.max(synced, target);
+                lastSync = System.currentTimeMillis();
+            }
+        } finally {
+            synchronized (monitor) {
+                syncing = false;
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    long rotate() throws IOException {
+        synchronized (monitor) {
+            try {
+                while (syncing) {
+                    monitor.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            channel.force(false);
+            channel.close();
+            synced = written;
+            generation++;
+            channel = open(generation);
+            return generation;
+        }
+    }
+
+    void discard(long before) throws IOException {
+        for (long n : generations()) {
+            if (n < before) {
+                Files.deleteIfExists(nthGeneration(n));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        synchronized (monitor) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package db.storage.cache;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class ValueCache {
+    private static final int WINDOW_SHARE = 100;
+    private static final long ENTRY_OVERHEAD = 64;
+    private static final long OBJECT_OVERHEAD = 16;
+    private static final long UNKNOWN_SIZE = 64;
+    private static final int STRIPES = Integer.highestOneBit(
+        Math.min(64, Math.max(1, Runtime.getRuntime().availableProcessors()) * 2) * 2 - 1
+    );
+    private static final int BUFFER_SIZE = 32;
+
+    private static final long NEVER = 0;
+
+    private static class Entry {
+        private final Serializable value;
+        private final long weight;
+        private final long expiresAt;
+
+        private Entry(Serializable value, long weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt != NEVER && expiresAt <= now;
+        }
+    }
+
+    private static class ReadBuffer {
+        private final AtomicReferenceArray<Serializable> keys;
+        private final AtomicLong writes;
+        private volatile long reads;
+
+        private ReadBuffer() {
+            this.keys = new AtomicReferenceArray<>(BUFFER_SIZE);
+            this.writes = new AtomicLong();
+            this.reads = 0;
+        }
+
+        private boolean offer(Serializable key) {
+            long tail = writes.get();
+            if (tail - reads >= BUFFER_SIZE) {
+                return false;
+            }
+            if (writes.compareAndSet(tail, tail + 1)) {
+                keys.lazySet((int) (tail & (BUFFER_SIZE - 1)), key);
+            }
+            return true;
+        }
+
+        private void drain(ValueCache cache) {
+            long head = reads;
+            long tail = writes.get();
+            for (; head < tail; head++) {
+                int slot = (int) (head & (BUFFER_SIZE - 1));
+                Serializable key = keys.get(slot);
+                if (key == null) {
+                    break;
+                }
+                keys.lazySet(slot, null);
+                cache.onRead(key);
+            }
+            reads = head;
+        }
+    }
+
+    private final long maxEntries;
+    private final long maxBytes;
+    private final ConcurrentHashMap<Serializable, Entry> data;
+    private final ReadBuffer[] buffers;
+    private final ReentrantLock evictionLock;
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<Serializable, Entry> window;
+    private final LinkedHashMap<Serializable, Entry> main;
+    private long windowWeight;
+    private long mainWeight;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    public ValueCache(long maxEntries, long maxBytes) {
+        if (maxEntries <= 0 && maxBytes <= 0) {
+            throw new IllegalArgumentException("Value cache must be bounded by entries or bytes");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.data = new ConcurrentHashMap<>();
+        this.buffers = new ReadBuffer[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            buffers[i] = new ReadBuffer();
+        }
+        this.evictionLock = new ReentrantLock();
+        this.sketch = new FrequencySketch(maxEntries > 0 ? maxEntries : maxBytes / (ENTRY_OVERHEAD * 4));
+        this.window = new LinkedHashMap<>(16, 0.75f, true);
+        this.main = new LinkedHashMap<>(16, 0.75f, true);
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+    }
+
+    private static long sizeOf(Serializable object) {
+        if (object == null) {
+            return 0;
+        }
+        if (object instanceof String) {
+            return OBJECT_OVERHEAD * 2 + ((String) object).length() * 2L;
+        }
+        if (object instanceof byte[]) {
+            return OBJECT_OVERHEAD + ((byte[]) object).length;
+        }
+        if (object instanceof Number || object instanceof Boolean || object instanceof Character) {
+            return OBJECT_OVERHEAD + Long.BYTES;
+        }
+        return UNKNOWN_SIZE;
+    }
+
+    private static int stripe() {
+        long id = Thread.currentThread().getId();
+        return ((int) (id ^ (id >>> 32)) * 0x9E3779B9 >>> 16) & (STRIPES - 1);
+    }
+
+    public Serializable get(Serializable key) {
+        Entry entry = data.get(key);
+        if (!buffers[stripe()].offer(key)) {
+            tryDrain();
+        }
+        if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+            evictionLock.lock();
+            try {
+                if (data.remove(key, entry)) {
+                    remove(key);
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    public void put(Serializable key, Serializable value) {
+        put(key, value, NEVER);
+    }
+
+    public void put(Serializable key, Serializable value, long expiresAt) {
+        if (value == null) {
+            invalidate(key);
+            return;
+        }
+        Entry entry = new Entry(value, ENTRY_OVERHEAD + sizeOf(key) + sizeOf(value), expiresAt);
+        evictionLock.lock();
+        try {
+            drain();
+            remove(key);
+            data.put(key, entry);
+            window.put(key, entry);
+            windowWeight += entry.weight;
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidate(Serializable key) {
+        evictionLock.lock();
+        try {
+            data.remove(key);
+            remove(key);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void clear() {
+        evictionLock.lock();
+        try {
+            drain();
+            data.clear();
+            window.clear();
+            main.clear();
+            windowWeight = 0;
+            mainWeight = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void tryDrain() {
+        if (evictionLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void drain() {
+        for (ReadBuffer buffer : buffers) {
+            buffer.drain(this);
+        }
+    }
+
+    private void onRead(Serializable key) {
+        sketch.increment(key);
+        if (window.get(key) == null) {
+            main.get(key);
+        }
+    }
+
+    private void remove(Serializable key) {
+        Entry entry = window.remove(key);
+        if (entry != null) {
+            windowWeight -= entry.weight;
+        }
+        entry = main.remove(key);
+        if (entry != null) {
+            mainWeight -= entry.weight;
+        }
+    }
+
+    private boolean windowExceeded() {
+        return maxEntries > 0 && window.size() > Math.max(1, maxEntries / WINDOW_SHARE)
+            || maxBytes > 0 && windowWeight > maxBytes / WINDOW_SHARE;
+    }
+
+    private boolean exceeded(long extraEntries, long extraWeight) {
+        return maxEntries > 0 && window.size() + main.size() + extraEntries > maxEntries
+            || maxBytes > 0 && windowWeight + mainWeight + extraWeight > maxBytes;
+    }
+
+    private void evict() {
+        while (windowExceeded()) {
+            Iterator<Map.Entry<Serializable, Entry>> eldest = window.entrySet().iterator();
+            Map.Entry<Serializable, Entry> candidate = eldest.next();
+            eldest.remove();
+            windowWeight -= candidate.getValue().weight;
+            admit(candidate.getKey(), candidate.getValue());
+        }
+        while (exceeded(0, 0) && !window.isEmpty()) {
+            Iterator<Map.Entry<Serializable, Entry>> eldest = window.entrySet().iterator();
+            Map.Entry<Serializable, Entry> victim = eldest.next();
+            eldest.remove();
+            windowWeight -= victim.getValue().weight;
+            data.remove(victim.getKey(), victim.getValue());
+            evictions.increment();
+        }
+    }
+
+    private void admit(Serializable key, Entry candidate) {
+        int frequency = sketch.frequency(key);
+        while (exceeded(1, candidate.weight)) {
+            Iterator<Map.Entry<Serializable, Entry>> eldest = main.entrySet().iterator();
+            if (!eldest.hasNext()) {
+                data.remove(key, candidate);
+                evictions.increment();
+                return;
+            }
+            Map.Entry<Serializable, Entry> victim = eldest.next();
+            if (sketch.frequency(victim.getKey()) >= frequency) {
+                data.remove(key, candidate);
+                evictions.increment();
+                return;
+            }
+            eldest.remove();
+            mainWeight -= victim.getValue().weight;
+            data.remove(victim.getKey(), victim.getValue());
+            evictions.increment();
+        }
+        main.put(key, candidate);
+        mainWeight += candidate.weight;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getSize() {
+        return data.size();
+    }
+
+    public long getWeight() {
+        evictionLock.lock();
+        try {
+            return windowWeight + mainWeight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package db.storage.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class ByteArrayCodec implements Codec<byte[]> {
+    private static final long serialVersionUID = 8261657684473197624L;
+
+    @Override
+    public void write(byte[] value, DataOutput output) throws IOException {
+        output.writeInt(value.length);
+        output.write(value);
+    }
+
+    @Override
+    public byte[] read(DataInput input) throws IOException {
+        byte[] bytes = Codecs.readBytes(input);
+        return bytes;
+    }
+}
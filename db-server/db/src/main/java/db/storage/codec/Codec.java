@@ -0,0 +1,11 @@
+package db.storage.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+public interface Codec<T> extends Serializable {
+    void write(T value, DataOutput output) throws IOException;
+    T read(DataInput input) throws IOException;
+}
@@ -0,0 +1,53 @@
+package db.storage.codec;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+
+public final class Codecs {
+    private static final int CHUNK = 0x10000;
+
+    private Codecs() {}
+
+    @SuppressWarnings("unchecked")
+    public static <T extends Serializable> Codec<T> forClass(Class<T> type) {
+        if (type == String.class) {
+            return (Codec<T>) new StringCodec();
+        } else if (type == Long.class) {
+            return (Codec<T>) new LongCodec();
+        } else if (type == Integer.class) {
+            return (Codec<T>) new IntegerCodec();
+        } else if (type == byte[].class) {
+            return (Codec<T>) new ByteArrayCodec();
+        } else {
+            return new SerializableCodec<>();
+        }
+    }
+
+    public static Codec<Serializable> forValues() {
+        return new TaggedCodec(false);
+    }
+
+    public static Codec<Serializable> forUntrustedValues() {
+        return new TaggedCodec(true);
+    }
+
+    static byte[] readBytes(DataInput input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            throw new IOException("Negative length " + length);
+        }
+        byte[] bytes = new byte[Math.min(length, CHUNK)];
+        int read = 0;
+        while (read < length) {
+            if (read == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+            }
+            int chunk = bytes.length - read;
+            input.readFully(bytes, read, chunk);
+            read += chunk;
+        }
+        return bytes;
+    }
+}
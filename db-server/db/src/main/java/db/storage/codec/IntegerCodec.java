@@ -0,0 +1,19 @@
+package db.storage.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class IntegerCodec implements Codec<Integer> {
+    private static final long serialVersionUID = 2784249659845191438L;
+
+    @Override
+    public void write(Integer value, DataOutput output) throws IOException {
+        output.writeInt(value);
+    }
+
+    @Override
+    public Integer read(DataInput input) throws IOException {
+        return input.readInt();
+    }
+}
@@ -0,0 +1,19 @@
+package db.storage.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class LongCodec implements Codec<Long> {
+    private static final long serialVersionUID = -8531699129511414324L;
+
+    @Override
+    public void write(Long value, DataOutput output) throws IOException {
+        output.writeLong(value);
+    }
+
+    @Override
+    public Long read(DataInput input) throws IOException {
+        return input.readLong();
+    }
+}
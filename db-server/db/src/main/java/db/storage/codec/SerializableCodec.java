@@ -0,0 +1,28 @@
+package db.storage.codec;
+
+import java.io.*;
+
+public class SerializableCodec<T extends Serializable> implements Codec<T> {
+    private static final long serialVersionUID = 8258772313671944433L;
+
+    @Override
+    public void write(T value, DataOutput output) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutput objectOutput = new ObjectOutputStream(bytes)) {
+            objectOutput.writeObject(value);
+        }
+        output.writeInt(bytes.size());
+        output.write(bytes.toByteArray());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T read(DataInput input) throws IOException {
+        byte[] bytes = Codecs.readBytes(input);
+        try (ObjectInput objectInput = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (T) objectInput.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+}
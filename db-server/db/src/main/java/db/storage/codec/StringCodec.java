@@ -0,0 +1,23 @@
+package db.storage.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class StringCodec implements Codec<String> {
+    private static final long serialVersionUID = -1509457273540090022L;
+
+    @Override
+    public void write(String value, DataOutput output) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    @Override
+    public String read(DataInput input) throws IOException {
+        byte[] bytes = Codecs.readBytes(input);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
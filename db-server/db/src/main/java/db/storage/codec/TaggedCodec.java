@@ -0,0 +1,78 @@
+package db.storage.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+public class TaggedCodec implements Codec<Serializable> {
+    private static final long serialVersionUID = 1577960769301841103L;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte INTEGER = 3;
+    private static final byte BYTES = 4;
+    private static final byte SERIALIZABLE = 5;
+
+    private final StringCodec stringCodec = new StringCodec();
+    private final LongCodec longCodec = new LongCodec();
+    private final IntegerCodec integerCodec = new IntegerCodec();
+    private final ByteArrayCodec byteArrayCodec = new ByteArrayCodec();
+    private final SerializableCodec<Serializable> serializableCodec = new SerializableCodec<>();
+    private final boolean untrusted;
+
+    public TaggedCodec() {
+        this(false);
+    }
+
+    TaggedCodec(boolean untrusted) {
+        this.untrusted = untrusted;
+    }
+
+    @Override
+    public void write(Serializable value, DataOutput output) throws IOException {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof String) {
+            output.writeByte(STRING);
+            stringCodec.write((String) value, output);
+        } else if (value instanceof Long) {
+            output.writeByte(LONG);
+            longCodec.write((Long) value, output);
+        } else if (value instanceof Integer) {
+            output.writeByte(INTEGER);
+            integerCodec.write((Integer) value, output);
+        } else if (value instanceof byte[]) {
+            output.writeByte(BYTES);
+            byteArrayCodec.write((byte[]) value, output);
+        } else {
+            output.writeByte(SERIALIZABLE);
+            serializableCodec.write(value, output);
+        }
+    }
+
+    @Override
+    public Serializable read(DataInput input) throws IOException {
+        byte tag = input.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return stringCodec.read(input);
+            case LONG:
+                return longCodec.read(input);
+            case INTEGER:
+                return integerCodec.read(input);
+            case BYTES:
+                return byteArrayCodec.read(input);
+            case SERIALIZABLE:
+                if (untrusted) {
+                    throw new IllegalArgumentException("Serialized Java objects are not accepted from untrusted input");
+                }
+                return serializableCodec.read(input);
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+}
@@ -1,27 +1,82 @@
 package db.storage.parameters;
 
+import db.storage.BucketFormat;
+import db.storage.Compression;
+import db.storage.FsyncPolicy;
+import db.storage.Growth;
 import db.storage.HashFunction;
+import db.storage.codec.Codec;
 
 import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 class SPImpl<K extends Serializable> implements StorageParameters<K> {
+    private static final long serialVersionUID = -922347220681985591L;
+
     private int size;
     private int capacity;
+    private int splitPointer;
     final HashFunction<K> hash;
     private final Class<K> keyClass;
+    private final BucketFormat bucketFormat;
+    private final double compactionThreshold;
+    private final Growth growth;
+    private final boolean indexed;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncInterval;
+    private final Codec<K> keyCodec;
+    private final Codec<Serializable> valueCodec;
+    private final double falsePositiveRate;
+    private final String[] shards;
+    private final Compression compression;
+    private final boolean ordered;
+    private final int orderedLimit;
 
-    SPImpl(int capacity, HashFunction<K> hash, Class<K> keyClass) {
+    SPImpl(
+        int capacity,
+        HashFunction<K> hash,
+        Class<K> keyClass,
+        BucketFormat bucketFormat,
+        double compactionThreshold,
+        Growth growth,
+        boolean indexed,
+        FsyncPolicy fsyncPolicy,
+        long fsyncInterval,
+        Codec<K> keyCodec,
+        Codec<Serializable> valueCodec,
+        double falsePositiveRate,
+        String[] shards,
+        Compression compression,
+        boolean ordered,
+        int orderedLimit
+    ) {
         this.hash = hash;
         this.keyClass = keyClass;
+        this.bucketFormat = bucketFormat;
+        this.compactionThreshold = compactionThreshold;
+        this.growth = growth;
+        this.indexed = indexed;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncInterval = fsyncInterval;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.falsePositiveRate = falsePositiveRate;
+        this.shards = shards;
+        this.compression = compression;
+        this.ordered = ordered;
+        this.orderedLimit = orderedLimit;
         size = 0;
         this.capacity = capacity;
+        splitPointer = 0;
     }
 
     @Override
     public int hash(K key) {
         if (hash == null) {
-            return Objects.hash(key);
+            return 31 + Objects.hashCode(key);
         } else {
             return hash.hash(key);
         }
@@ -37,6 +92,11 @@ class SPImpl<K extends Serializable> implements StorageParameters<K> {
         this.capacity = capacity;
     }
 
+    @Override
+    public void setSplitPointer(int splitPointer) {
+        this.splitPointer = splitPointer;
+    }
+
     @Override
     public int getSize() {
         return size;
@@ -47,8 +107,84 @@ class SPImpl<K extends Serializable> implements StorageParameters<K> {
         return capacity;
     }
 
+    @Override
+    public int getSplitPointer() {
+        return splitPointer;
+    }
+
     @Override
     public Class<K> getKeyClass() {
         return keyClass;
     }
+
+    @Override
+    public BucketFormat getBucketFormat() {
+        return bucketFormat == null ? BucketFormat.OBJECT_STREAM : bucketFormat;
+    }
+
+    @Override
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    @Override
+    public Growth getGrowth() {
+        return growth == null ? Growth.DOUBLING : growth;
+    }
+
+    @Override
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    @Override
+    public int getOrderedLimit() {
+        return orderedLimit;
+    }
+
+    @Override
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    @Override
+    public long getFsyncInterval() {
+        return fsyncInterval;
+    }
+
+    @Override
+    public Codec<K> getKeyCodec() {
+        return keyCodec;
+    }
+
+    @Override
+    public Codec<Serializable> getValueCodec() {
+        return valueCodec;
+    }
+
+    @Override
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    @Override
+    public List<Path> getShards() {
+        List<Path> paths = new ArrayList<>();
+        if (shards != null) {
+            for (String shard : shards) {
+                paths.add(Path.of(shard));
+            }
+        }
+        return paths;
+    }
+
+    @Override
+    public Compression getCompression() {
+        return compression == null ? Compression.NONE : compression;
+    }
 }
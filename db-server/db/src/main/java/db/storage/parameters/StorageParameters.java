@@ -1,14 +1,37 @@
 package db.storage.parameters;
 
+import db.storage.BucketFormat;
+import db.storage.Compression;
+import db.storage.FsyncPolicy;
+import db.storage.Growth;
+import db.storage.codec.Codec;
+
 import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.List;
 
 public interface StorageParameters<K extends Serializable> extends Serializable {
     int hash(K key);
     void setSize(int size);
     void setCapacity(int capacity);
+    void setSplitPointer(int splitPointer);
     int getSize();
     int getCapacity();
+    int getSplitPointer();
     Class<K> getKeyClass();
+    BucketFormat getBucketFormat();
+    double getCompactionThreshold();
+    Growth getGrowth();
+    boolean isIndexed();
+    boolean isOrdered();
+    int getOrderedLimit();
+    FsyncPolicy getFsyncPolicy();
+    long getFsyncInterval();
+    Codec<K> getKeyCodec();
+    Codec<Serializable> getValueCodec();
+    double getFalsePositiveRate();
+    List<Path> getShards();
+    Compression getCompression();
 
     static <K extends Serializable> StorageParametersBuilder<K> newBuilder(Class<K> keyClass) {
         return new StorageParametersBuilder<>(keyClass);
@@ -16,10 +39,25 @@ public interface StorageParameters<K extends Serializable> extends Serializable
 
     static <K extends Serializable> StorageParameters<K> copyOf(
         StorageParameters<K> other
+    ) {
+        return copyOf(other, other.getShards());
+    }
+
+    static <K extends Serializable> StorageParameters<K> copyOf(
+        StorageParameters<K> other,
+        List<Path> shards
     ) {
         return StorageParameters.newBuilder(other.getKeyClass())
             .capacity(other.getCapacity())
             .hash(((SPImpl<K>) other).hash)
+            .bucketFormat(other.getBucketFormat())
+            .compactionThreshold(other.getCompactionThreshold())
+            .growth(other.getGrowth())
+            .keyCodec(other.getKeyCodec())
+            .valueCodec(other.getValueCodec())
+            .falsePositiveRate(other.getFalsePositiveRate())
+            .compression(other.getCompression())
+            .shards(shards)
             .build();
     }
 }
@@ -1,18 +1,46 @@
 package db.storage.parameters;
 
+import db.storage.BucketFormat;
+import db.storage.Compression;
+import db.storage.FsyncPolicy;
+import db.storage.Growth;
+import db.storage.codec.Codec;
+import db.storage.codec.Codecs;
 import db.storage.HashFunction;
 
 import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
 
 public class StorageParametersBuilder<K extends Serializable> {
     private static final int DEFAULT_CAPACITY = 2;
+    private static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+    private static final long DEFAULT_FSYNC_INTERVAL = 1000;
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+    private static final int DEFAULT_ORDERED_LIMIT = 1 << 20;
 
     private int optionalCapacity = DEFAULT_CAPACITY;
     private HashFunction<K> hashFunction = null;
+    private BucketFormat bucketFormat = BucketFormat.OBJECT_STREAM;
+    private double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private Growth growth = Growth.DOUBLING;
+    private boolean indexed = false;
+    private boolean ordered = false;
+    private int orderedLimit = DEFAULT_ORDERED_LIMIT;
+    private FsyncPolicy fsyncPolicy = null;
+    private long fsyncInterval = DEFAULT_FSYNC_INTERVAL;
+    private double falsePositiveRate = DEFAULT_FALSE_POSITIVE_RATE;
+    private List<Path> shards = List.of();
+    private Compression compression = Compression.NONE;
     private final Class<K> keyClass;
+    private Codec<K> keyCodec;
+    private Codec<Serializable> valueCodec;
 
     StorageParametersBuilder(Class<K> keyClass) {
         this.keyClass = keyClass;
+        this.keyCodec = Codecs.forClass(keyClass);
+        this.valueCodec = Codecs.forValues();
     }
 
     public StorageParametersBuilder<K> capacity(int capacity) {
@@ -25,7 +53,108 @@ public class StorageParametersBuilder<K extends Serializable> {
         return this;
     }
 
+    public StorageParametersBuilder<K> bucketFormat(BucketFormat bucketFormat) {
+        this.bucketFormat = bucketFormat;
+        return this;
+    }
+
+    public StorageParametersBuilder<K> compactionThreshold(double compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+        return this;
+    }
+
+    public StorageParametersBuilder<K> growth(Growth growth) {
+        this.growth = growth;
+        return this;
+    }
+
+    public StorageParametersBuilder<K> indexed(boolean indexed) {
+        this.indexed = indexed;
+        return this;
+    }
+
+    public StorageParametersBuilder<K> ordered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    public StorageParametersBuilder<K> orderedLimit(int orderedLimit) {
+        this.orderedLimit = orderedLimit;
+        return this;
+    }
+
+    public StorageParametersBuilder<K> fsyncPolicy(FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+        return this;
+    }
+
+    public StorageParametersBuilder<K> fsyncInterval(long fsyncInterval) {
+        this.fsyncInterval = fsyncInterval;
+        return this;
+    }
+
+    public StorageParametersBuilder<K> keyCodec(Codec<K> keyCodec) {
+        this.keyCodec = keyCodec;
+        return this;
+    }
+
+    public StorageParametersBuilder<K> valueCodec(Codec<Serializable> valueCodec) {
+        this.valueCodec = valueCodec;
+        return this;
+    }
+
+    public StorageParametersBuilder<K> falsePositiveRate(double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+        return this;
+    }
+
+    public StorageParametersBuilder<K> shards(List<Path> shards) {
+        this.shards = shards;
+        return this;
+    }
+
+    public StorageParametersBuilder<K> compression(Compression compression) {
+        this.compression = compression;
+        return this;
+    }
+
     public StorageParameters<K> build() {
-        return new SPImpl<>(optionalCapacity, hashFunction, keyClass);
+        if (indexed && bucketFormat == BucketFormat.OBJECT_STREAM) {
+            throw new IllegalArgumentException("Key index is not supported by " + bucketFormat + " bucket format");
+        }
+        if (ordered && !Comparable.class.isAssignableFrom(keyClass)) {
+            throw new IllegalArgumentException("Ordered index requires Comparable keys, got " + keyClass.getName());
+        }
+        if (orderedLimit <= 0) {
+            throw new IllegalArgumentException("Ordered index limit must be positive");
+        }
+        if (falsePositiveRate < 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Bloom filter false positive rate must be in [0, 1)");
+        }
+        if (new HashSet<>(shards).size() != shards.size()) {
+            throw new IllegalArgumentException("Shard directories must be distinct");
+        }
+        String[] shardNames = new String[shards.size()];
+        for (int i = 0; i < shardNames.length; i++) {
+            shardNames[i] = shards.get(i).toAbsolutePath().normalize().toString();
+        }
+        return new SPImpl<>(
+            optionalCapacity,
+            hashFunction,
+            keyClass,
+            bucketFormat,
+            compactionThreshold,
+            growth,
+            indexed,
+            fsyncPolicy,
+            fsyncInterval,
+            keyCodec,
+            valueCodec,
+            falsePositiveRate,
+            shardNames,
+            compression,
+            ordered,
+            orderedLimit
+        );
     }
 }
\ No newline at end of file
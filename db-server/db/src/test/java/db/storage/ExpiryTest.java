@@ -0,0 +1,66 @@
+package db.storage;
+
+import db.storage.parameters.StorageParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExpiryTest {
+
+    private static final int ENTRIES = 100;
+    private static final long TTL = 1000;
+
+    @Test
+    void expiresAndReapsKeys(@TempDir Path root) throws Exception {
+        for (BucketFormat format : BucketFormat.values()) {
+            Path path = root.resolve(format.name());
+            Storage<Integer> storage = Storage.newStorage(
+                path,
+                StorageParameters.newBuilder(Integer.class).bucketFormat(format).capacity(ENTRIES * 2).build()
+            );
+            for (int i = 0; i < ENTRIES; i++) {
+                if (i % 2 == 0) {
+                    storage.put(i, "v" + i, TTL);
+                } else {
+                    storage.put(i, "v" + i);
+                }
+            }
+            for (int i = 0; i < ENTRIES; i++) {
+                assertEquals("v" + i, storage.get(i), format + " key " + i + " before expiry");
+            }
+
+            Thread.sleep(2 * TTL);
+            for (int i = 0; i < ENTRIES; i += 2) {
+                assertNull(storage.get(i), format + " expired key " + i);
+            }
+            assertEquals(ENTRIES / 2, storage.reap(Integer.MAX_VALUE), format + " reaped keys");
+            assertEquals(0, storage.reap(Integer.MAX_VALUE), format + " second reap");
+            storage.close();
+
+            Storage<Integer> reopened = Storage.loadStorage(path);
+            for (int i = 0; i < ENTRIES; i++) {
+                if (i % 2 == 0) {
+                    assertNull(reopened.get(i), format + " expired key " + i + " after reopen");
+                } else {
+                    assertEquals("v" + i, reopened.get(i), format + " key " + i + " after reopen");
+                }
+            }
+            reopened.close();
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveTtl(@TempDir Path root) throws Exception {
+        Storage<Integer> storage = Storage.newStorage(
+            root.resolve("storage"),
+            StorageParameters.newBuilder(Integer.class).build()
+        );
+        assertThrows(IllegalArgumentException.class, () -> storage.put(1, "v", 0));
+        storage.close();
+    }
+}
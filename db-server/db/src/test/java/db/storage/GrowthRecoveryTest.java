@@ -0,0 +1,107 @@
+package db.storage;
+
+import db.storage.exceptions.InvalidKeyTypeException;
+import db.storage.parameters.StorageParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GrowthRecoveryTest {
+
+    private static final int ENTRIES = 4;
+
+    private static Storage<Integer> newStorage(
+        Path path,
+        BucketFormat format,
+        int capacity
+    ) throws IOException, InvalidKeyTypeException {
+        Storage<Integer> storage = Storage.newStorage(
+            path,
+            StorageParameters.newBuilder(Integer.class).bucketFormat(format).capacity(capacity).build()
+        );
+        for (int i = 0; i < ENTRIES; i++) {
+            storage.put(i, "v" + i);
+        }
+        return storage;
+    }
+
+    private static void assertNoLeftovers(Path path) {
+        assertFalse(Files.exists(path.resolve("copy")));
+        assertFalse(Files.exists(path.resolve("parameters.grown")));
+        assertFalse(Files.exists(path.resolve("data.retired")));
+    }
+
+    private static Path interruptedGrowth(
+        Path root,
+        BucketFormat format,
+        boolean committed
+    ) throws IOException, InvalidKeyTypeException {
+        Path path = root.resolve(format.name() + "-" + committed);
+        Path grown = root.resolve(format.name() + "-" + committed + "-grown");
+        newStorage(path, format, ENTRIES).close();
+        newStorage(grown, format, 64).close();
+        Files.createDirectory(path.resolve("copy"));
+        Files.move(grown.resolve("data"), path.resolve("copy").resolve("data"));
+        if (committed) {
+            Files.copy(grown.resolve("parameters"), path.resolve("parameters.grown"));
+        }
+        return path;
+    }
+
+    @Test
+    void swapsInTheGrownDirectory(@TempDir Path root) throws Exception {
+        for (BucketFormat format : BucketFormat.values()) {
+            Path path = root.resolve(format.name());
+            Storage<Integer> storage = newStorage(path, format, 2);
+            for (int i = ENTRIES; i < 100; i++) {
+                storage.put(i, "v" + i);
+            }
+            assertTrue(storage.getStorageParameters().getCapacity() >= 100);
+            assertNoLeftovers(path);
+            storage.close();
+
+            Storage<Integer> reloaded = Storage.loadStorage(path);
+            assertEquals(storage.getStorageParameters().getCapacity(), reloaded.getStorageParameters().getCapacity());
+            assertEquals(100, reloaded.getStorageParameters().getSize());
+            for (int i = 0; i < 100; i++) {
+                assertEquals("v" + i, reloaded.get(i), format + " key " + i);
+            }
+            reloaded.close();
+        }
+    }
+
+    @Test
+    void rollsForwardCommittedGrowth(@TempDir Path root) throws Exception {
+        for (BucketFormat format : BucketFormat.values()) {
+            Path path = interruptedGrowth(root, format, true);
+            Storage<Integer> storage = Storage.loadStorage(path);
+            assertEquals(64, storage.getStorageParameters().getCapacity());
+            for (int i = 0; i < ENTRIES; i++) {
+                assertEquals("v" + i, storage.get(i), format + " key " + i);
+            }
+            assertNoLeftovers(path);
+            storage.close();
+        }
+    }
+
+    @Test
+    void rollsBackUncommittedGrowth(@TempDir Path root) throws Exception {
+        for (BucketFormat format : BucketFormat.values()) {
+            Path path = interruptedGrowth(root, format, false);
+            Storage<Integer> storage = Storage.loadStorage(path);
+            assertEquals(ENTRIES, storage.getStorageParameters().getCapacity());
+            for (int i = 0; i < ENTRIES; i++) {
+                assertEquals("v" + i, storage.get(i), format + " key " + i);
+            }
+            assertNoLeftovers(path);
+            storage.close();
+        }
+    }
+}
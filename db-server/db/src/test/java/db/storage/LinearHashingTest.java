@@ -0,0 +1,109 @@
+package db.storage;
+
+import db.storage.parameters.StorageParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LinearHashingTest {
+
+    private static final int ENTRIES = 300;
+
+    @Test
+    void findsKeysOnBothSidesOfTheSplitPointer(@TempDir Path root) throws Exception {
+        for (BucketFormat format : BucketFormat.values()) {
+            Storage<Integer> storage = Storage.newStorage(
+                root.resolve(format.name()),
+                StorageParameters.newBuilder(Integer.class).bucketFormat(format).growth(Growth.LINEAR).capacity(2).build()
+            );
+            boolean midLevel = false;
+            for (int i = 0; i < ENTRIES; i++) {
+                storage.put(i, "v" + i);
+                midLevel |= storage.getStorageParameters().getSplitPointer() > 0;
+                for (int j = 0; j <= i; j++) {
+                    assertEquals("v" + j, storage.get(j), format + " key " + j + " after " + i + " puts");
+                }
+                assertNull(storage.get(-1 - i));
+            }
+            assertTrue(midLevel, format + " never stopped between levels");
+            assertTrue(storage.getStorageParameters().getCapacity() >= ENTRIES);
+            storage.close();
+        }
+    }
+
+    @Test
+    void splitsOneBucketAtATime(@TempDir Path root) throws Exception {
+        Storage<Integer> storage = Storage.newStorage(
+            root.resolve("storage"),
+            StorageParameters.newBuilder(Integer.class).bucketFormat(BucketFormat.LOG).growth(Growth.LINEAR).capacity(4).build()
+        );
+        int capacity = storage.getStorageParameters().getCapacity();
+        for (int i = 0; i < ENTRIES; i++) {
+            storage.put(i, "v" + i);
+            int grown = storage.getStorageParameters().getCapacity();
+            assertTrue(grown - capacity <= 1, "capacity jumped from " + capacity + " to " + grown);
+            capacity = grown;
+        }
+        storage.close();
+    }
+
+    @Test
+    void keepsTheSplitStateAcrossReload(@TempDir Path root) throws Exception {
+        Path path = root.resolve("storage");
+        Storage<Integer> storage = Storage.newStorage(
+            path,
+            StorageParameters.newBuilder(Integer.class).bucketFormat(BucketFormat.LOG).growth(Growth.LINEAR).capacity(2).build()
+        );
+        for (int i = 0; i < 100; i++) {
+            storage.put(i, "v" + i);
+        }
+        int splitPointer = storage.getStorageParameters().getSplitPointer();
+        int capacity = storage.getStorageParameters().getCapacity();
+        storage.close();
+
+        Storage<Integer> reloaded = Storage.loadStorage(path);
+        assertEquals(splitPointer, reloaded.getStorageParameters().getSplitPointer());
+        assertEquals(capacity, reloaded.getStorageParameters().getCapacity());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("v" + i, reloaded.get(i));
+        }
+        reloaded.close();
+    }
+
+    @Test
+    void stripsTheSplitBucketAfterACrash(@TempDir Path root) throws Exception {
+        Path path = root.resolve("storage");
+        Storage<Integer> storage = Storage.newStorage(
+            path,
+            StorageParameters.newBuilder(Integer.class).bucketFormat(BucketFormat.LOG).growth(Growth.LINEAR).capacity(2).build()
+        );
+        for (int i = 0; i < 100; i++) {
+            storage.put(i, "v" + i);
+        }
+        int splitPointer = storage.getStorageParameters().getSplitPointer();
+        int capacity = storage.getStorageParameters().getCapacity();
+        storage.close();
+
+        Path source = path.resolve("data").resolve(Integer.toString(splitPointer == 0 ? capacity / 2 - 1 : splitPointer - 1));
+        Path target = path.resolve("data").resolve(Integer.toString(capacity - 1));
+        long stripped = Files.size(source);
+        Files.write(source, Files.readAllBytes(target), StandardOpenOption.APPEND);
+        Files.delete(path.resolve("snapshot"));
+
+        for (int reload = 0; reload < 2; reload++) {
+            Storage<Integer> reloaded = Storage.loadStorage(path);
+            assertEquals(stripped, Files.size(source));
+            for (int i = 0; i < 100; i++) {
+                assertEquals("v" + i, reloaded.get(i));
+            }
+            reloaded.close();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package db.storage;
+
+import db.storage.parameters.StorageParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogCompactionTest {
+
+    private static final int ENTRIES = 200;
+    private static final int OVERWRITES = 4;
+
+    private static long dataSize(Path path) throws IOException {
+        try (Stream<Path> buckets = Files.list(path.resolve("data"))) {
+            long size = 0;
+            for (Path bucket : (Iterable<Path>) buckets::iterator) {
+                size += Files.size(bucket);
+            }
+            return size;
+        }
+    }
+
+    private static void assertContents(Storage<Integer> storage) throws Exception {
+        for (int i = 0; i < ENTRIES; i++) {
+            if (i % 10 == 0) {
+                assertNull(storage.get(i), "deleted key " + i);
+            } else {
+                assertEquals("v" + i + "-" + (OVERWRITES - 1), storage.get(i), "key " + i);
+            }
+        }
+    }
+
+    @Test
+    void compactsOverwritesAndSurvivesReopen(@TempDir Path root) throws Exception {
+        Path path = root.resolve("storage");
+        Storage<Integer> storage = Storage.newStorage(
+            path,
+            StorageParameters.newBuilder(Integer.class)
+                .bucketFormat(BucketFormat.LOG)
+                .compactionThreshold(0)
+                .capacity(ENTRIES * OVERWRITES * 2)
+                .build()
+        );
+        for (int round = 0; round < OVERWRITES; round++) {
+            for (int i = 0; i < ENTRIES; i++) {
+                storage.put(i, "v" + i + "-" + round);
+            }
+        }
+        for (int i = 0; i < ENTRIES; i += 10) {
+            storage.put(i, null);
+        }
+        storage.flush();
+        long before = dataSize(path);
+        assertEquals(ENTRIES * OVERWRITES + ENTRIES / 10, storage.getStorageParameters().getSize());
+
+        storage.compact();
+        storage.flush();
+        assertTrue(dataSize(path) < before, "compaction did not shrink the buckets");
+        assertEquals(ENTRIES, storage.getStorageParameters().getSize());
+        assertContents(storage);
+        storage.close();
+
+        Storage<Integer> reopened = Storage.loadStorage(path);
+        assertEquals(ENTRIES, reopened.getStorageParameters().getSize());
+        assertContents(reopened);
+        reopened.put(1, "after");
+        assertEquals("after", reopened.get(1));
+        reopened.close();
+    }
+}
@@ -0,0 +1,49 @@
+package db.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ObjectStreamBucketsTest {
+
+    private static List<Serializable> keys(Buckets buckets, int bucket) throws Exception {
+        List<Serializable> keys = new ArrayList<>();
+        buckets.forEach(bucket, (pair, position) -> keys.add(pair.getKey()));
+        return keys;
+    }
+
+    @Test
+    void appendsWithoutRewritingTheBucket(@TempDir Path root) throws Exception {
+        for (Compression compression : Compression.values()) {
+            Path data = Files.createDirectory(root.resolve(compression.name()));
+            Buckets buckets = new ObjectStreamBuckets(data, root, compression, StorageMetrics.NONE);
+            List<Serializable> expected = new ArrayList<>();
+            long size = 0;
+            for (int i = 0; i < 20; i++) {
+                int key = i;
+                buckets.append(0, writer -> {
+                    writer.write(new KeyValuePair<>(key, "v" + key));
+                    writer.write(new KeyValuePair<>(-key, "v" + key));
+                });
+                expected.add(key);
+                expected.add(-key);
+                long grown = Files.size(data.resolve("0"));
+                assertTrue(grown > size, compression + " bucket shrank");
+                size = grown;
+                assertEquals(expected, keys(buckets, 0), compression + " after " + (i + 1) + " appends");
+            }
+
+            buckets.rewrite(0, writer -> writer.write(new KeyValuePair<>(1, "v1")));
+            buckets.append(0, new KeyValuePair<>(2, "v2"));
+            assertEquals(List.of(1, 2), keys(buckets, 0), compression + " after a rewrite");
+        }
+    }
+}
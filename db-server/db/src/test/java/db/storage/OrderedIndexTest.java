@@ -0,0 +1,88 @@
+package db.storage;
+
+import db.storage.parameters.StorageParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderedIndexTest {
+
+    private static Storage<String> newStorage(Path path, int limit) throws IOException {
+        return Storage.newStorage(
+            path,
+            StorageParameters.newBuilder(String.class)
+                .bucketFormat(BucketFormat.LOG)
+                .ordered(true)
+                .orderedLimit(limit)
+                .capacity(4)
+                .build()
+        );
+    }
+
+    @Test
+    void returnsRangesInKeyOrder(@TempDir Path root) throws Exception {
+        Storage<String> storage = newStorage(root.resolve("storage"), 1000);
+        for (int i = 99; i >= 0; i--) {
+            storage.put(String.format("k%02d", i), "v" + i);
+        }
+        Map<String, Serializable> range = storage.range("k10", "k20", 100);
+        assertEquals(List.of("k10", "k11", "k12", "k13", "k14", "k15", "k16", "k17", "k18", "k19"), List.copyOf(range.keySet()));
+        assertEquals("v15", range.get("k15"));
+        assertEquals(List.of("k00", "k01", "k02"), List.copyOf(storage.range(null, null, 3).keySet()));
+        assertEquals(List.of("k98", "k99"), List.copyOf(storage.range("k98", null, 100).keySet()));
+        assertTrue(storage.range("k20", "k10", 100).isEmpty());
+        storage.close();
+    }
+
+    @Test
+    void matchesPrefixes(@TempDir Path root) throws Exception {
+        Storage<String> storage = newStorage(root.resolve("storage"), 1000);
+        for (String key : List.of("apple", "apricot", "banana", "application", "ap")) {
+            storage.put(key, key.length());
+        }
+        assertEquals(List.of("ap", "apple", "application", "apricot"), List.copyOf(storage.prefix("ap", 100).keySet()));
+        assertEquals(List.of("apple", "application"), List.copyOf(storage.prefix("appl", 100).keySet()));
+        assertTrue(storage.prefix("c", 100).isEmpty());
+        storage.close();
+    }
+
+    @Test
+    void skipsDeletedKeysAndSurvivesReload(@TempDir Path root) throws Exception {
+        Path path = root.resolve("storage");
+        Storage<String> storage = newStorage(path, 1000);
+        for (int i = 0; i < 10; i++) {
+            storage.put("k" + i, "v" + i);
+        }
+        storage.put("k3", null);
+        storage.close();
+
+        Storage<String> reloaded = Storage.loadStorage(path);
+        assertEquals(List.of("k2", "k4", "k5"), List.copyOf(reloaded.range("k2", "k6", 100).keySet()));
+        reloaded.close();
+    }
+
+    @Test
+    void dropsTheIndexPastItsLimit(@TempDir Path root) throws Exception {
+        Path path = root.resolve("storage");
+        Storage<String> storage = newStorage(path, 10);
+        for (int i = 0; i < 11; i++) {
+            storage.put("k" + i, "v" + i);
+        }
+        assertThrows(IllegalArgumentException.class, () -> storage.range(null, null, 100));
+        assertEquals("v10", storage.get("k10"));
+        storage.close();
+
+        Storage<String> reloaded = Storage.loadStorage(path);
+        assertThrows(IllegalArgumentException.class, () -> reloaded.prefix("k", 100));
+        reloaded.close();
+    }
+}
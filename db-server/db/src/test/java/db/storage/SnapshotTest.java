@@ -0,0 +1,103 @@
+package db.storage;
+
+import db.storage.parameters.StorageParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotTest {
+
+    private static final int ENTRIES = 1000;
+
+    private static void corrupt(Path file, int offset) throws Exception {
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[offset] ^= 1;
+        Files.write(file, bytes);
+    }
+
+    @Test
+    void loadsWhatWasSaved(@TempDir Path root) throws Exception {
+        StorageParameters<Integer> parameters = StorageParameters.newBuilder(Integer.class).capacity(8).build();
+        new Snapshot(root.resolve("snapshot")).save(parameters, 42, null);
+
+        AtomicInteger size = new AtomicInteger();
+        assertTrue(new Snapshot(root.resolve("snapshot")).load(parameters, null, size));
+        assertEquals(42, size.get());
+    }
+
+    @Test
+    void rejectsCorruptedSnapshot(@TempDir Path root) throws Exception {
+        StorageParameters<Integer> parameters = StorageParameters.newBuilder(Integer.class).capacity(8).build();
+        Path path = root.resolve("snapshot");
+        new Snapshot(path).save(parameters, 42, null);
+        corrupt(path, Files.readAllBytes(path).length - Long.BYTES - 1);
+
+        AtomicInteger size = new AtomicInteger();
+        assertFalse(new Snapshot(path).load(parameters, null, size));
+        assertEquals(0, size.get());
+    }
+
+    @Test
+    void rejectsSnapshotOfAnotherLayout(@TempDir Path root) throws Exception {
+        Path path = root.resolve("snapshot");
+        new Snapshot(path).save(StorageParameters.newBuilder(Integer.class).capacity(8).build(), 42, null);
+
+        StorageParameters<Integer> grown = StorageParameters.newBuilder(Integer.class).capacity(16).build();
+        assertFalse(new Snapshot(path).load(grown, null, new AtomicInteger()));
+    }
+
+    @Test
+    void rebuildsIndexAndSizeFromBuckets(@TempDir Path root) throws Exception {
+        for (BucketFormat format : new BucketFormat[]{BucketFormat.LOG, BucketFormat.MAPPED}) {
+            Path path = root.resolve(format.name());
+            Storage<Integer> storage = Storage.newStorage(
+                path,
+                StorageParameters.newBuilder(Integer.class).bucketFormat(format).indexed(true).capacity(2).build()
+            );
+            for (int i = 0; i < ENTRIES; i++) {
+                storage.put(i, "v" + i);
+            }
+            for (int i = 0; i < ENTRIES; i += 2) {
+                storage.put(i, "w" + i);
+            }
+            int size = storage.getStorageParameters().getSize();
+            storage.close();
+            assertTrue(Files.exists(path.resolve("snapshot")));
+            corrupt(path.resolve("snapshot"), 40);
+
+            Storage<Integer> rebuilt = Storage.loadStorage(path);
+            assertEquals(size, rebuilt.getStorageParameters().getSize());
+            for (int i = 0; i < ENTRIES; i++) {
+                assertEquals((i % 2 == 0 ? "w" : "v") + i, rebuilt.get(i), format + " key " + i);
+            }
+            assertNull(rebuilt.get(ENTRIES));
+            rebuilt.close();
+        }
+    }
+
+    @Test
+    void recountsSizeAfterUncleanStop(@TempDir Path root) throws Exception {
+        Path path = root.resolve("storage");
+        Storage<Integer> storage = Storage.newStorage(
+            path,
+            StorageParameters.newBuilder(Integer.class).bucketFormat(BucketFormat.LOG).capacity(1024).build()
+        );
+        for (int i = 0; i < ENTRIES; i++) {
+            storage.put(i, "v" + i);
+        }
+        assertFalse(Files.exists(path.resolve("snapshot")));
+
+        Storage<Integer> rebuilt = Storage.loadStorage(path);
+        assertEquals(ENTRIES, rebuilt.getStorageParameters().getSize());
+        assertEquals("v" + (ENTRIES - 1), rebuilt.get(ENTRIES - 1));
+        rebuilt.close();
+    }
+}
@@ -0,0 +1,89 @@
+package db.storage;
+
+import db.storage.parameters.StorageParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteAheadLogTest {
+
+    private static final int ENTRIES = 1000;
+
+    private static Storage<Integer> newStorage(Path path) throws IOException {
+        return Storage.newStorage(path, StorageParameters.newBuilder(Integer.class)
+            .bucketFormat(BucketFormat.LOG)
+            .fsyncPolicy(FsyncPolicy.ALWAYS)
+            .capacity(16)
+            .build());
+    }
+
+    private static Path lastGeneration(Path path) throws IOException {
+        try (Stream<Path> logs = Files.list(path.resolve("wal"))) {
+            return logs.max((a, b) -> Long.compare(
+                Long.parseLong(a.getFileName().toString()),
+                Long.parseLong(b.getFileName().toString())
+            )).orElseThrow();
+        }
+    }
+
+    @Test
+    void replaysLoggedWritesAfterUncleanClose(@TempDir Path root) throws Exception {
+        Path path = root.resolve("storage");
+        Storage<Integer> storage = newStorage(path);
+        for (int i = 0; i < ENTRIES; i++) {
+            storage.put(i, "v" + i);
+        }
+        storage.put(7, "overwritten");
+        assertTrue(Files.size(lastGeneration(path)) > 0);
+
+        Storage<Integer> recovered = Storage.loadStorage(path);
+        for (int i = 0; i < ENTRIES; i++) {
+            assertEquals(i == 7 ? "overwritten" : "v" + i, recovered.get(i));
+        }
+        assertEquals(ENTRIES, recovered.getStorageParameters().getSize());
+        recovered.close();
+    }
+
+    @Test
+    void ignoresTornTail(@TempDir Path root) throws Exception {
+        Path path = root.resolve("storage");
+        Storage<Integer> storage = newStorage(path);
+        for (int i = 0; i < ENTRIES; i++) {
+            storage.put(i, "v" + i);
+        }
+        ByteBuffer torn = ByteBuffer.allocate(Integer.BYTES + Long.BYTES + 3).putInt(64).putLong(42);
+        Files.write(lastGeneration(path), torn.array(), StandardOpenOption.APPEND);
+
+        Storage<Integer> recovered = Storage.loadStorage(path);
+        for (int i = 0; i < ENTRIES; i++) {
+            assertEquals("v" + i, recovered.get(i));
+        }
+        assertNull(recovered.get(ENTRIES));
+        recovered.close();
+    }
+
+    @Test
+    void discardsReplayedGenerations(@TempDir Path root) throws Exception {
+        Path path = root.resolve("storage");
+        Storage<Integer> storage = newStorage(path);
+        for (int i = 0; i < ENTRIES; i++) {
+            storage.put(i, "v" + i);
+        }
+        Storage.loadStorage(path).close();
+
+        Storage<Integer> reloaded = Storage.loadStorage(path);
+        assertEquals(ENTRIES, reloaded.getStorageParameters().getSize());
+        assertEquals("v1", reloaded.get(1));
+        reloaded.close();
+    }
+}
@@ -0,0 +1,24 @@
+package server.loadtest;
+
+import java.util.Random;
+
+public enum KeyDistribution {
+    UNIFORM {
+        @Override
+        KeyGenerator newGenerator(long keys, double exponent) {
+            return random -> (long) (random.nextDouble() * keys);
+        }
+    },
+    ZIPFIAN {
+        @Override
+        KeyGenerator newGenerator(long keys, double exponent) {
+            return new ZipfianGenerator(keys, exponent);
+        }
+    };
+
+    interface KeyGenerator {
+        long next(Random random);
+    }
+
+    abstract KeyGenerator newGenerator(long keys, double exponent);
+}
@@ -0,0 +1,91 @@
+package server.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+class LatencyReport {
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final String HGRM = ".hgrm";
+
+    private final Map<Operation, Recorder> recorders;
+    private final Map<Operation, LongAdder> errors;
+    private volatile boolean measuring;
+
+    LatencyReport() {
+        this.recorders = new EnumMap<>(Operation.class);
+        this.errors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(SIGNIFICANT_DIGITS));
+            errors.put(operation, new LongAdder());
+        }
+        this.measuring = false;
+    }
+
+    void record(Operation operation, long latency, boolean success) {
+        if (!measuring) {
+            return;
+        }
+        recorders.get(operation).recordValue(latency);
+        if (!success) {
+            errors.get(operation).increment();
+        }
+    }
+
+    void start() {
+        for (Operation operation : Operation.values()) {
+            recorders.get(operation).reset();
+            errors.get(operation).reset();
+        }
+        measuring = true;
+    }
+
+    void stop() {
+        measuring = false;
+    }
+
+    void print(PrintStream out, long elapsed, Path histograms) throws IOException {
+        double seconds = elapsed / (double) TimeUnit.SECONDS.toNanos(1);
+        long total = 0;
+        out.printf(
+            "%-8s %10s %8s %10s %10s %10s %10s %10s%n",
+            "endpoint", "requests", "errors", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"
+        );
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = recorders.get(operation).getIntervalHistogram();
+            long count = histogram.getTotalCount();
+            if (count == 0) {
+                continue;
+            }
+            total += count;
+            out.printf(
+                "%-8s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f%n",
+                operation.getEndpoint(),
+                count,
+                errors.get(operation).sum(),
+                count / seconds,
+                histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                histogram.getMaxValue() / NANOS_PER_MILLI
+            );
+            if (histograms != null) {
+                Files.createDirectories(histograms);
+                Path file = histograms.resolve(operation.name().toLowerCase() + HGRM);
+                try (PrintStream hgrm = new PrintStream(Files.newOutputStream(file))) {
+                    histogram.outputPercentileDistribution(hgrm, NANOS_PER_MILLI);
+                }
+            }
+        }
+        out.printf("total %d requests in %.1f s, %.1f ops/s%n", total, seconds, total / seconds);
+    }
+}
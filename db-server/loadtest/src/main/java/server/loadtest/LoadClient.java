@@ -0,0 +1,130 @@
+package server.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+class LoadClient {
+    private static final String BATCH_PUT = "/batch/put";
+    private static final String KEY_TYPE = Long.class.getName();
+    private static final String CREATED = "created-";
+    private static final int BATCH = 1000;
+
+    private final HttpClient http;
+    private final ObjectMapper objectMapper;
+    private final URI base;
+    private final Path root;
+    private final String storageName;
+    private final LoadOptions options;
+    private final KeyDistribution.KeyGenerator keys;
+    private final String value;
+    private final AtomicLong created;
+
+    LoadClient(URI base, Path root, String storageName, LoadOptions options) {
+        this.http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.objectMapper = new ObjectMapper();
+        this.base = base;
+        this.root = root;
+        this.storageName = storageName;
+        this.options = options;
+        this.keys = options.getDistribution().newGenerator(options.getKeys(), options.getZipfianExponent());
+        this.value = "v".repeat(options.getValueSize());
+        this.created = new AtomicLong();
+    }
+
+    void setUp() throws IOException, InterruptedException {
+        check(send(request("POST", Operation.CREATE.getEndpoint(), creation(storageName))));
+        List<Map<String, Object>> entries = new ArrayList<>(BATCH);
+        for (long key = 0; key < options.getKeys(); key++) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("key", key);
+            entry.put("value", value);
+            entries.add(entry);
+            if (entries.size() == BATCH || key == options.getKeys() - 1) {
+                Map<String, Object> batch = new LinkedHashMap<>();
+                batch.put("storageName", storageName);
+                batch.put("entries", entries);
+                check(send(request("POST", BATCH_PUT, batch)));
+                entries.clear();
+            }
+        }
+    }
+
+    int send(Operation operation) throws IOException, InterruptedException {
+        return send(request(operation));
+    }
+
+    CompletableFuture<Integer> sendAsync(Operation operation) {
+        HttpRequest request;
+        try {
+            request = request(operation);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static void check(int status) throws IOException {
+        if (!isSuccess(status)) {
+            throw new IOException("Load test setup failed with HTTP status " + status);
+        }
+    }
+
+    static boolean isSuccess(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    private HttpRequest request(Operation operation) throws IOException {
+        Map<String, Object> body;
+        switch (operation) {
+            case CREATE:
+                body = creation(root.resolve(CREATED + created.incrementAndGet()).toString());
+                break;
+            case GET:
+                body = new LinkedHashMap<>();
+                body.put("storageName", storageName);
+                body.put("key", keys.next(ThreadLocalRandom.current()));
+                break;
+            case PUT:
+                body = new LinkedHashMap<>();
+                body.put("storageName", storageName);
+                body.put("key", keys.next(ThreadLocalRandom.current()));
+                body.put("value", value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+        return request(operation.getMethod(), operation.getEndpoint(), body);
+    }
+
+    private Map<String, Object> creation(String name) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("storageName", name);
+        body.put("keyType", KEY_TYPE);
+        body.put("bucketFormat", options.getBucketFormat());
+        return body;
+    }
+
+    private HttpRequest request(String method, String endpoint, Object body) throws IOException {
+        return HttpRequest.newBuilder(base.resolve(endpoint))
+            .header("Content-Type", "application/json")
+            .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+            .build();
+    }
+}
@@ -0,0 +1,129 @@
+package server.loadtest;
+
+import db.storage.BucketFormat;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+class LoadOptions {
+    private static final String PREFIX = "--";
+
+    enum Pacing {
+        OPEN,
+        CLOSED
+    }
+
+    private final Map<String, String> values;
+    private final Map<Operation, Integer> mix;
+    private final int totalWeight;
+
+    private LoadOptions(Map<String, String> values) {
+        this.values = values;
+        this.mix = parseMix(get("mix", "get=90,put=10"));
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("Operation mix must have a positive weight");
+        }
+        if (getPacing() == Pacing.OPEN && getRate() <= 0) {
+            throw new IllegalArgumentException("Open-loop pacing requires a positive --rate");
+        }
+        if (getConcurrency() <= 0 || getKeys() <= 0 || getDuration() <= 0 || getWarmup() < 0) {
+            throw new IllegalArgumentException("Concurrency, keys and duration must be positive");
+        }
+    }
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith(PREFIX) || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            values.put(arg.substring(PREFIX.length(), separator), arg.substring(separator + 1));
+        }
+        return new LoadOptions(values);
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] weight = part.split("=");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight in --mix, got " + part);
+            }
+            int value = Integer.parseInt(weight[1].trim());
+            if (value < 0) {
+                throw new IllegalArgumentException("Operation weight can't be negative: " + part);
+            }
+            weights.put(Operation.valueOf(weight[0].trim().toUpperCase()), value);
+        }
+        return weights;
+    }
+
+    private String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    Operation nextOperation(Random random) {
+        int point = random.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> weight : mix.entrySet()) {
+            point -= weight.getValue();
+            if (point < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("Operation mix is empty");
+    }
+
+    Map<Operation, Integer> getMix() {
+        return mix;
+    }
+
+    long getDuration() {
+        return Long.parseLong(get("duration", "30"));
+    }
+
+    long getWarmup() {
+        return Long.parseLong(get("warmup", "5"));
+    }
+
+    int getConcurrency() {
+        return Integer.parseInt(get("concurrency", "16"));
+    }
+
+    Pacing getPacing() {
+        return Pacing.valueOf(get("pacing", values.containsKey("rate") ? "OPEN" : "CLOSED").toUpperCase());
+    }
+
+    double getRate() {
+        return Double.parseDouble(get("rate", "0"));
+    }
+
+    long getKeys() {
+        return Long.parseLong(get("keys", "100000"));
+    }
+
+    KeyDistribution getDistribution() {
+        return KeyDistribution.valueOf(get("distribution", "UNIFORM").toUpperCase());
+    }
+
+    double getZipfianExponent() {
+        return Double.parseDouble(get("zipfian-exponent", "0.99"));
+    }
+
+    int getValueSize() {
+        return Integer.parseInt(get("value-size", "100"));
+    }
+
+    BucketFormat getBucketFormat() {
+        return BucketFormat.valueOf(get("bucket-format", "LOG").toUpperCase());
+    }
+
+    Path getHistograms() {
+        String histograms = values.get("histograms");
+        return histograms == null ? null : Path.of(histograms);
+    }
+}
@@ -0,0 +1,152 @@
+package server.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import server.application.DbServerApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+public class LoadTest {
+    private static final String STORAGE = "load";
+
+    private final LoadOptions options;
+    private final LoadClient client;
+    private final LatencyReport report;
+
+    private LoadTest(LoadOptions options, LoadClient client) {
+        this.options = options;
+        this.client = client;
+        this.report = new LatencyReport();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        Path root = Files.createTempDirectory("db-server-load");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DbServerApplication.class)
+            .properties("server.port=0")
+            .logStartupInfo(false)
+            .run();
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadClient client = new LoadClient(
+                URI.create("http://localhost:" + port),
+                root,
+                root.resolve(STORAGE).toString(),
+                options
+            );
+            client.setUp();
+            new LoadTest(options, client).run();
+        } finally {
+            context.close();
+            delete(root);
+        }
+    }
+
+    private void run() throws Exception {
+        long warmup = TimeUnit.SECONDS.toNanos(options.getWarmup());
+        long duration = TimeUnit.SECONDS.toNanos(options.getDuration());
+        System.out.printf(
+            "%s loop, concurrency %d, %s keys %d, mix %s, %s buckets%n",
+            options.getPacing(),
+            options.getConcurrency(),
+            options.getDistribution(),
+            options.getKeys(),
+            options.getMix(),
+            options.getBucketFormat()
+        );
+        long start = System.nanoTime();
+        long end = start + warmup + duration;
+        Thread driver = new Thread(() -> {
+            try {
+                if (options.getPacing() == LoadOptions.Pacing.OPEN) {
+                    runOpen(start, end);
+                } else {
+                    runClosed(end);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "load-driver");
+        driver.start();
+        sleepUntil(start + warmup);
+        report.start();
+        long measured = System.nanoTime();
+        driver.join();
+        long elapsed = System.nanoTime() - measured;
+        report.stop();
+        report.print(System.out, elapsed, options.getHistograms());
+    }
+
+    private void runOpen(long start, long end) throws InterruptedException {
+        double interval = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+        Semaphore inFlight = new Semaphore(options.getConcurrency());
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * interval);
+            if (intended >= end) {
+                break;
+            }
+            sleepUntil(intended);
+            inFlight.acquire();
+            Operation operation = options.nextOperation(ThreadLocalRandom.current());
+            client.sendAsync(operation).whenComplete((status, error) -> {
+                report.record(operation, System.nanoTime() - intended, error == null && LoadClient.isSuccess(status));
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(options.getConcurrency());
+    }
+
+    private void runClosed(long end) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>(options.getConcurrency());
+        for (int i = 0; i < options.getConcurrency(); i++) {
+            Thread worker = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    Operation operation = options.nextOperation(ThreadLocalRandom.current());
+                    long start = System.nanoTime();
+                    boolean success;
+                    try {
+                        success = LoadClient.isSuccess(client.send(operation));
+                    } catch (IOException e) {
+                        success = false;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    report.record(operation, System.nanoTime() - start, success);
+                }
+            }, "load-worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
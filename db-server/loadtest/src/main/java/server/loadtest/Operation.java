@@ -0,0 +1,23 @@
+package server.loadtest;
+
+public enum Operation {
+    CREATE("POST", "/create"),
+    GET("GET", "/get"),
+    PUT("POST", "/put");
+
+    private final String method;
+    private final String endpoint;
+
+    Operation(String method, String endpoint) {
+        this.method = method;
+        this.endpoint = endpoint;
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,46 @@
+package server.loadtest;
+
+import java.util.Random;
+
+class ZipfianGenerator implements KeyDistribution.KeyGenerator {
+    private final long keys;
+    private final double exponent;
+    private final double alpha;
+    private final double zetan;
+    private final double eta;
+
+    ZipfianGenerator(long keys, double exponent) {
+        if (keys <= 0) {
+            throw new IllegalArgumentException("Key count must be positive");
+        }
+        if (exponent <= 0 || exponent == 1) {
+            throw new IllegalArgumentException("Zipfian exponent must be positive and not equal to 1");
+        }
+        this.keys = keys;
+        this.exponent = exponent;
+        this.alpha = 1 / (1 - exponent);
+        this.zetan = zeta(keys, exponent);
+        this.eta = (1 - Math.pow(2.0 / keys, 1 - exponent)) / (1 - zeta(2, exponent) / zetan);
+    }
+
+    private static double zeta(long n, double exponent) {
+        double sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, exponent);
+        }
+        return sum;
+    }
+
+    @Override
+    public long next(Random random) {
+        double u = random.nextDouble();
+        double uz = u * zetan;
+        if (uz < 1) {
+            return 0;
+        }
+        if (uz < 1 + Math.pow(0.5, exponent)) {
+            return Math.min(1, keys - 1);
+        }
+        return Math.min((long) (keys * Math.pow(eta * u - eta + 1, alpha)), keys - 1);
+    }
+}